@@ -0,0 +1,47 @@
+package com.turtlearmymc.spirittools.benchmark;
+
+import com.turtlearmymc.spirittools.entities.MiningProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the breakable block estimate charged on every swing, as done by
+ * SpiritToolEntity#estimateBreakableScheduledBlocks for a tool with several material buckets and mining slots
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BreakEstimateBenchmark {
+	@Param({"1", "4", "16"})
+	public int buckets;
+
+	@Param({"1", "4", "16"})
+	public int slots;
+
+	private int[] slotTicks;
+	private int[] bucketBlocks;
+	private int[] bucketTicksToBreak;
+
+	@Setup
+	public void setup() {
+		// Slots part way through a tool's lifetime, some of them mining a block
+		slotTicks = new int[slots];
+		for (int i = 0; i < slots; i++) slotTicks[i] = 198 + i % 3;
+		// Buckets of varying size and hardness, like ores mixed with stone
+		bucketBlocks = new int[buckets];
+		bucketTicksToBreak = new int[buckets];
+		for (int i = 0; i < buckets; i++) {
+			bucketBlocks[i] = 8 + i * 5;
+			bucketTicksToBreak[i] = 2 + i % 7;
+		}
+	}
+
+	@Benchmark
+	public int estimateBreakableScheduledBlocks() {
+		// The estimate uses up the slot ticks, so every call gets its own copy like the entity builds one
+		return MiningProfile.estimateBlocksBreakable(Arrays.copyOf(slotTicks, slots), bucketBlocks,
+				bucketTicksToBreak);
+	}
+}
@@ -0,0 +1,78 @@
+package com.turtlearmymc.spirittools.benchmark;
+
+import com.turtlearmymc.spirittools.mining.MiningQueue;
+import com.turtlearmymc.spirittools.mining.MiningSchedule;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-tool schedule operations: picking the next block the way SpiritToolEntity#findNextMiningBlock does
+ * and the NBT round trip of the schedule on save and load
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MiningScheduleBenchmark {
+	@Param({"10", "100", "1000", "10000"})
+	public int size;
+
+	@Param({"BLOB", "LINE", "LAYER"})
+	public VeinShape shape;
+
+	private LongOpenHashSet vein;
+	private MiningSchedule schedule;
+	private byte[] savedSchedule;
+
+	@Setup
+	public void setup() throws IOException {
+		vein = shape.generate(size);
+		schedule = fill(new MiningSchedule());
+		NbtCompound nbt = new NbtCompound();
+		schedule.writeNbt(nbt, "miningPositions");
+		savedSchedule = write(nbt);
+	}
+
+	private MiningSchedule fill(MiningSchedule schedule) {
+		for (LongIterator it = vein.iterator(); it.hasNext(); ) schedule.add(it.nextLong());
+		return schedule;
+	}
+
+	@Benchmark
+	public int scheduleAndMineAll() {
+		MiningSchedule schedule = fill(new MiningSchedule());
+		int mined = 0;
+		// Every other position is treated as no longer valid
+		while (schedule.pollNearest(0.5, 0.5, 0.5, chunk -> true, pos -> (pos & 1) == 0) != MiningQueue.NONE) {
+			schedule.markBroken();
+			++mined;
+		}
+		return mined;
+	}
+
+	@Benchmark
+	public byte[] writeNbt() throws IOException {
+		NbtCompound nbt = new NbtCompound();
+		schedule.writeNbt(nbt, "miningPositions");
+		return write(nbt);
+	}
+
+	@Benchmark
+	public MiningSchedule readNbt() throws IOException {
+		NbtCompound nbt = NbtIo.read(new DataInputStream(new ByteArrayInputStream(savedSchedule)));
+		MiningSchedule loaded = new MiningSchedule();
+		loaded.readNbt(nbt, "miningPositions");
+		return loaded;
+	}
+
+	private static byte[] write(NbtCompound nbt) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		NbtIo.write(nbt, new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+}
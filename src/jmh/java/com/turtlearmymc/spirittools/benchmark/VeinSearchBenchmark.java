@@ -0,0 +1,39 @@
+package com.turtlearmymc.spirittools.benchmark;
+
+import com.turtlearmymc.spirittools.mining.BlockMatcher;
+import com.turtlearmymc.spirittools.mining.VeinSearch;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the vein search done for every swing, which replaced SpiritToolItem#fillMiningPositions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VeinSearchBenchmark {
+	@Param({"10", "100", "1000", "10000"})
+	public int size;
+
+	@Param({"BLOB", "LINE", "LAYER"})
+	public VeinShape shape;
+
+	private BlockMatcher matcher;
+	private double range;
+
+	@Setup
+	public void setup() {
+		LongOpenHashSet vein = shape.generate(size);
+		matcher = VeinShape.matcherFor(vein);
+		range = VeinShape.rangeFor(vein);
+	}
+
+	@Benchmark
+	public LongSet findConnected() {
+		return VeinSearch.findConnected(matcher, BlockPos.ORIGIN, range);
+	}
+}
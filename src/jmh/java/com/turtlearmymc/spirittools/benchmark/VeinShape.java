@@ -0,0 +1,68 @@
+package com.turtlearmymc.spirittools.benchmark;
+
+import com.turtlearmymc.spirittools.mining.BlockMatcher;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * In-memory stand-in for a world: a vein of a given shape and size around the origin, every other block is assumed
+ * to be something else.
+ */
+public enum VeinShape {
+	// Roughly spherical blob, the usual shape of ore veins
+	BLOB {
+		@Override
+		public LongOpenHashSet generate(int size) {
+			LongOpenHashSet vein = new LongOpenHashSet(size);
+			for (int radius = 0; vein.size() < size; radius++) {
+				for (int x = -radius; x <= radius && vein.size() < size; x++) {
+					for (int y = -radius; y <= radius && vein.size() < size; y++) {
+						for (int z = -radius; z <= radius && vein.size() < size; z++) {
+							if (x * x + y * y + z * z <= radius * radius) vein.add(BlockPos.asLong(x, y, z));
+						}
+					}
+				}
+			}
+			return vein;
+		}
+	},
+	// Single block wide line, the deepest search for its size
+	LINE {
+		@Override
+		public LongOpenHashSet generate(int size) {
+			LongOpenHashSet vein = new LongOpenHashSet(size);
+			for (int x = 0; x < size; x++) vein.add(BlockPos.asLong(x, 0, 0));
+			return vein;
+		}
+	},
+	// Flat square layer, as in stone clears
+	LAYER {
+		@Override
+		public LongOpenHashSet generate(int size) {
+			LongOpenHashSet vein = new LongOpenHashSet(size);
+			int side = (int) Math.ceil(Math.sqrt(size));
+			for (int i = 0; i < size; i++) vein.add(BlockPos.asLong(i % side, 0, i / side));
+			return vein;
+		}
+	};
+
+	public abstract LongOpenHashSet generate(int size);
+
+	/**
+	 * @return a search range that includes every block of the vein
+	 */
+	public static double rangeFor(LongOpenHashSet vein) {
+		double maxDistanceSquared = 0;
+		for (long pos : vein) {
+			double x = BlockPos.unpackLongX(pos);
+			double y = BlockPos.unpackLongY(pos);
+			double z = BlockPos.unpackLongZ(pos);
+			maxDistanceSquared = Math.max(maxDistanceSquared, x * x + y * y + z * z);
+		}
+		return Math.sqrt(maxDistanceSquared) + 1;
+	}
+
+	public static BlockMatcher matcherFor(LongOpenHashSet vein) {
+		return (x, y, z) -> vein.contains(BlockPos.asLong(x, y, z));
+	}
+}
@@ -1,8 +1,22 @@
 package com.turtlearmymc.spirittools;
 
+import com.turtlearmymc.spirittools.command.SpiritToolsCommand;
+import com.turtlearmymc.spirittools.entities.OverflowDropBudget;
+import com.turtlearmymc.spirittools.entities.ScheduledBlockWatcher;
 import com.turtlearmymc.spirittools.entities.SpiritPickaxeEntity;
+import com.turtlearmymc.spirittools.entities.SpiritToolEntity;
+import com.turtlearmymc.spirittools.entities.SpiritToolIndex;
+import com.turtlearmymc.spirittools.entities.SpiritToolScheduler;
 import com.turtlearmymc.spirittools.items.SpiritPickaxeItem;
+import com.turtlearmymc.spirittools.items.SpiritToolItem;
+import com.turtlearmymc.spirittools.metrics.SpiritToolsMetrics;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleFactory;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleRegistry;
 import net.fabricmc.fabric.api.itemgroup.v1.ItemGroupEvents;
 import net.fabricmc.fabric.api.object.builder.v1.entity.FabricEntityTypeBuilder;
 import net.minecraft.entity.EntityDimensions;
@@ -13,6 +27,7 @@ import net.minecraft.item.ItemGroups;
 import net.minecraft.registry.Registries;
 import net.minecraft.registry.Registry;
 import net.minecraft.util.Identifier;
+import net.minecraft.world.GameRules;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -29,6 +44,40 @@ public class SpiritTools implements ModInitializer {
 					FabricEntityTypeBuilder.create(SpawnGroup.MISC, SpiritPickaxeEntity::new).trackRangeChunks(8)
 							.dimensions(EntityDimensions.fixed(0.75f, 0.75f)).build()
 			);
+	// Register game rules
+	public static final GameRules.Key<GameRules.IntRule> PARALLEL_MINING_BLOCKS =
+			GameRuleRegistry.register("spiritToolParallelBlocks", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(1, 1, SpiritToolEntity.MAX_PARALLEL_BLOCKS)
+			);
+	// 0 disables the limit
+	public static final GameRules.Key<GameRules.IntRule> TICK_BUDGET_MICROS =
+			GameRuleRegistry.register("spiritToolTickBudgetMicros", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(5000, 0)
+			);
+	public static final GameRules.Key<GameRules.IntRule> SEARCH_RANGE =
+			GameRuleRegistry.register("spiritToolSearchRange", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(5, 1, 64)
+			);
+	// Positions probed per tool and tick by searches spread over several ticks, used for ranges above 5
+	public static final GameRules.Key<GameRules.IntRule> DISCOVERY_NODES_PER_TICK =
+			GameRuleRegistry.register("spiritToolDiscoveryNodesPerTick", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(512, 1)
+			);
+	// Worker tools a summoned tool may split a large schedule among, 0 disables swarms
+	public static final GameRules.Key<GameRules.IntRule> SWARM_SIZE =
+			GameRuleRegistry.register("spiritToolSwarmSize", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(0, 0, SpiritToolEntity.MAX_SWARM_SIZE)
+			);
+	// Ticks between drops being handed to the owner while mining, 0 hands them over when the tool returns
+	public static final GameRules.Key<GameRules.IntRule> DROP_DELIVERY_INTERVAL =
+			GameRuleRegistry.register("spiritToolDropDeliveryInterval", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(0, 0)
+			);
+	// Drops not fitting into the owner's inventory that a tool may spawn as items per tick, 0 disables the limit
+	public static final GameRules.Key<GameRules.IntRule> MAX_OVERFLOW_DROPS_PER_TICK =
+			GameRuleRegistry.register("spiritToolMaxOverflowDropsPerTick", GameRules.Category.MISC,
+					GameRuleFactory.createIntRule(0, 0)
+			);
 	public static Logger LOGGER = LogManager.getLogger();
 
 	public static void log(Level level, String message) {
@@ -41,5 +90,23 @@ public class SpiritTools implements ModInitializer {
 
 		Registry.register(Registries.ITEM, new Identifier(MOD_ID, SpiritPickaxeItem.ITEM_ID), SPIRIT_PICKAXE_ITEM);
 		ItemGroupEvents.modifyEntriesEvent(ItemGroups.TOOLS).register(entries -> entries.add(SPIRIT_PICKAXE_ITEM));
+
+		// Event handlers
+		ServerEntityEvents.ENTITY_LOAD.register(SpiritToolIndex::onEntityLoad);
+		ServerEntityEvents.ENTITY_UNLOAD.register(SpiritToolIndex::onEntityUnload);
+		ServerEntityEvents.ENTITY_UNLOAD.register(ScheduledBlockWatcher::onEntityUnload);
+		ServerTickEvents.END_SERVER_TICK.register(SpiritToolScheduler::onEndTick);
+		// After the tools ran, so that discoveries finished in this tick are replayed right away
+		ServerTickEvents.END_SERVER_TICK.register(SpiritToolItem::onEndTick);
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			SpiritToolScheduler.clear();
+			SpiritToolItem.clearPendingPlans();
+			OverflowDropBudget.clear();
+			SpiritToolsMetrics.reset();
+		});
+
+		// Commands
+		CommandRegistrationCallback.EVENT.register(
+				(dispatcher, registryAccess, environment) -> SpiritToolsCommand.register(dispatcher));
 	}
 }
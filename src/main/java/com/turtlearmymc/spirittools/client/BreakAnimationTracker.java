@@ -0,0 +1,112 @@
+package com.turtlearmymc.spirittools.client;
+
+import com.turtlearmymc.spirittools.network.BreakProgressPacket;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.networking.v1.PacketSender;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Iterator;
+
+/**
+ * Animates the break stages of blocks being broken by spirit tools from the start and stop updates sent by the
+ * server, the same way the stages advance on the server.
+ */
+@Environment(EnvType.CLIENT)
+public class BreakAnimationTracker {
+	// Ticks an animation is kept past its end when no stop arrived, e.g. because the tool went out of range
+	private static final int EXPIRY_GRACE_TICKS = 20;
+	private static final Int2ObjectMap<Animation> ANIMATIONS = new Int2ObjectOpenHashMap<>();
+	private static ClientWorld world;
+
+	private BreakAnimationTracker() {
+	}
+
+	public static void onPacket(
+			MinecraftClient client, ClientPlayNetworkHandler handler, PacketByteBuf buf, PacketSender responseSender
+	) {
+		int count = buf.readVarInt();
+		int[] breakers = new int[count];
+		long[] positions = new long[count];
+		int[] elapsedTicks = new int[count];
+		int[] totalTicks = new int[count];
+		for (int i = 0; i < count; i++) {
+			breakers[i] = buf.readVarInt();
+			positions[i] = buf.readLong();
+			elapsedTicks[i] = buf.readVarInt();
+			totalTicks[i] = buf.readVarInt();
+		}
+
+		client.execute(() -> {
+			for (int i = 0; i < count; i++) {
+				Animation previous = ANIMATIONS.remove(breakers[i]);
+				if (previous != null && previous.pos != positions[i]) clear(client, breakers[i], previous);
+				if (totalTicks[i] == BreakProgressPacket.STOP) {
+					if (previous != null && previous.pos == positions[i]) clear(client, breakers[i], previous);
+					continue;
+				}
+				Animation animation = new Animation(positions[i], elapsedTicks[i], totalTicks[i]);
+				// Keep showing the current stage when only the breaking speed changed
+				if (previous != null && previous.pos == positions[i]) animation.stage = previous.stage;
+				ANIMATIONS.put(breakers[i], animation);
+			}
+		});
+	}
+
+	public static void tick(MinecraftClient client) {
+		if (client.world != world) {
+			// The world renderer already dropped the progress of the previous world
+			ANIMATIONS.clear();
+			world = client.world;
+		}
+		if (ANIMATIONS.isEmpty() || client.world == null || client.isPaused()) return;
+		for (Iterator<Int2ObjectMap.Entry<Animation>> it = ANIMATIONS.int2ObjectEntrySet().iterator(); it.hasNext(); ) {
+			Int2ObjectMap.Entry<Animation> entry = it.next();
+			Animation animation = entry.getValue();
+			++animation.elapsed;
+			if (animation.elapsed > (long) animation.total + EXPIRY_GRACE_TICKS) {
+				clear(client, entry.getIntKey(), animation);
+				it.remove();
+				continue;
+			}
+			int stage = (int) Math.min(9, animation.elapsed * 10L / animation.total);
+			if (stage == animation.stage) continue;
+			client.worldRenderer.setBlockBreakingInfo(entry.getIntKey(), BlockPos.fromLong(animation.pos), stage);
+			animation.stage = stage;
+		}
+	}
+
+	public static void clear(MinecraftClient client) {
+		for (Iterator<Int2ObjectMap.Entry<Animation>> it = ANIMATIONS.int2ObjectEntrySet().iterator(); it.hasNext(); ) {
+			Int2ObjectMap.Entry<Animation> entry = it.next();
+			clear(client, entry.getIntKey(), entry.getValue());
+			it.remove();
+		}
+	}
+
+	private static void clear(MinecraftClient client, int breakerId, Animation animation) {
+		if (client.worldRenderer != null) {
+			client.worldRenderer.setBlockBreakingInfo(breakerId, BlockPos.fromLong(animation.pos), -1);
+		}
+	}
+
+	private static class Animation {
+		final long pos;
+		final int total;
+		int elapsed;
+		// Like on the server, stage 0 is never shown
+		int stage;
+
+		Animation(long pos, int elapsed, int total) {
+			this.pos = pos;
+			this.elapsed = elapsed;
+			this.total = total;
+		}
+	}
+}
@@ -2,10 +2,16 @@ package com.turtlearmymc.spirittools.client;
 
 import com.turtlearmymc.spirittools.SpiritTools;
 import com.turtlearmymc.spirittools.client.render.SpiritToolRenderer;
+import com.turtlearmymc.spirittools.entities.SpiritToolIndex;
 import com.turtlearmymc.spirittools.items.SpiritToolItem;
+import com.turtlearmymc.spirittools.network.BreakProgressPacket;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.client.rendering.v1.EntityRendererRegistry;
 import net.fabricmc.fabric.api.event.player.AttackBlockCallback;
 import net.fabricmc.fabric.api.object.builder.v1.client.model.FabricModelPredicateProviderRegistry;
@@ -17,10 +23,17 @@ public class SpiritToolsClient implements ClientModInitializer {
 	public void onInitializeClient() {
 		// Event handlers
 		AttackBlockCallback.EVENT.register(SpiritToolItem::attackBlockHandler);
+		ClientEntityEvents.ENTITY_LOAD.register(SpiritToolIndex::onEntityLoad);
+		ClientEntityEvents.ENTITY_UNLOAD.register(SpiritToolIndex::onEntityUnload);
+		ClientTickEvents.END_CLIENT_TICK.register(BreakAnimationTracker::tick);
+		ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> BreakAnimationTracker.clear(client));
+
+		// Networking
+		ClientPlayNetworking.registerGlobalReceiver(BreakProgressPacket.ID, BreakAnimationTracker::onPacket);
 
 		// Rendering
 		EntityRendererRegistry.register(SpiritTools.SPIRIT_PICKAXE_ENTITY, SpiritToolRenderer::new);
 		FabricModelPredicateProviderRegistry.register(
-				SpiritTools.SPIRIT_PICKAXE_ITEM, new Identifier("summoned"), SpiritToolItem::summonedPredicateProvider);
+				SpiritTools.SPIRIT_PICKAXE_ITEM, new Identifier("summoned"), SummonedPredicateCache::summonedPredicateProvider);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.turtlearmymc.spirittools.client;
+
+import com.turtlearmymc.spirittools.entities.SpiritToolIndex;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Resolves the "summoned" model predicate at most once per client tick for each rendered stack. Every other call
+ * in the same tick returns the cached result without reading NBT or querying the world.
+ */
+@Environment(EnvType.CLIENT)
+public class SummonedPredicateCache {
+	// Stacks do not override equals, so this is keyed by identity and forgets stacks once they are garbage
+	private static final Map<ItemStack, Entry> ENTRIES = new WeakHashMap<>();
+
+	private SummonedPredicateCache() {
+	}
+
+	public static float summonedPredicateProvider(
+			ItemStack itemStack, ClientWorld clientWorld, LivingEntity entity, int seed
+	) {
+		Entity holder = entity != null ? entity : itemStack.getHolder();
+		if (holder == null) return 0;
+
+		if (clientWorld == null) {
+			if (holder.world instanceof ClientWorld world) {
+				clientWorld = world;
+			} else {
+				return 0;
+			}
+		}
+
+		Entry entry = ENTRIES.get(itemStack);
+		if (entry == null) {
+			entry = new Entry();
+			ENTRIES.put(itemStack, entry);
+		}
+		long time = clientWorld.getTime();
+		if (entry.world != clientWorld || entry.resolvedAt != time) {
+			entry.resolve(itemStack, clientWorld);
+			entry.resolvedAt = time;
+		}
+		return entry.summoned ? 1 : 0;
+	}
+
+	private static class Entry {
+		ClientWorld world;
+		long resolvedAt;
+		NbtElement uuidElement;
+		UUID toolUuid;
+		boolean summoned;
+
+		void resolve(ItemStack stack, ClientWorld world) {
+			this.world = world;
+			NbtCompound nbt = stack.getNbt();
+			NbtElement element = nbt != null ? nbt.get("summonedTool") : null;
+			if (element != uuidElement) {
+				// Only parse the UUID again when the tag itself was replaced
+				uuidElement = element;
+				toolUuid = element != null && nbt.containsUuid("summonedTool") ? NbtHelper.toUuid(element) : null;
+			}
+			summoned = toolUuid != null && SpiritToolIndex.get(world, toolUuid) != null;
+		}
+	}
+}
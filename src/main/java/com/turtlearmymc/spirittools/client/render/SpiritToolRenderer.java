@@ -7,6 +7,8 @@ import net.minecraft.client.render.OverlayTexture;
 import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.entity.EntityRenderer;
 import net.minecraft.client.render.entity.EntityRendererFactory;
+import net.minecraft.client.render.item.ItemRenderer;
+import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.json.ModelTransformation;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.item.ItemStack;
@@ -16,7 +18,15 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RotationAxis;
 
 public class SpiritToolRenderer extends EntityRenderer<SpiritToolEntity> {
+	private static final Identifier TEXTURE =
+			new Identifier(SpiritTools.MOD_ID, "textures/entity/spirit_pickaxe/spirit_pickaxe.png");
+	// Beyond this distance the swing is too small to see, so only the facing is applied
+	private static final double SWING_RENDER_DISTANCE = 32;
+
 	ItemStack item = new ItemStack(Items.DIAMOND_PICKAXE);
+	// Resolved once and again only after a resource reload, which replaces the missing model as well
+	private BakedModel model;
+	private BakedModel missingModel;
 
 	public SpiritToolRenderer(EntityRendererFactory.Context context) {
 		super(context);
@@ -24,7 +34,7 @@ public class SpiritToolRenderer extends EntityRenderer<SpiritToolEntity> {
 
 	@Override
 	public Identifier getTexture(SpiritToolEntity entity) {
-		return new Identifier(SpiritTools.MOD_ID, "textures/entity/spirit_pickaxe/spirit_pickaxe.png");
+		return TEXTURE;
 	}
 
 	@Override
@@ -34,16 +44,31 @@ public class SpiritToolRenderer extends EntityRenderer<SpiritToolEntity> {
 	) {
 		matrices.push();
 
-		setAngles(entity, tickDelta, matrices);
+		if (dispatcher.getSquaredDistanceToCamera(entity) < SWING_RENDER_DISTANCE * SWING_RENDER_DISTANCE) {
+			setAngles(entity, tickDelta, matrices);
+		} else {
+			setFacing(entity, matrices);
+		}
 		matrices.translate(0, 0.5, 0);
+		// Every tool writes into the same item render layer buffers, which are drawn together once per frame
 		MinecraftClient.getInstance().getItemRenderer()
-				.renderItem(item, ModelTransformation.Mode.FIXED, light, OverlayTexture.DEFAULT_UV, matrices,
-						vertexConsumers, entity.getId()
+				.renderItem(item, ModelTransformation.Mode.FIXED, false, matrices, vertexConsumers, light,
+						OverlayTexture.DEFAULT_UV, getModel()
 				);
 
 		matrices.pop();
 	}
 
+	private BakedModel getModel() {
+		ItemRenderer itemRenderer = MinecraftClient.getInstance().getItemRenderer();
+		BakedModel currentMissingModel = itemRenderer.getModels().getModelManager().getMissingModel();
+		if (model == null || missingModel != currentMissingModel) {
+			model = itemRenderer.getModel(item, null, null, 0);
+			missingModel = currentMissingModel;
+		}
+		return model;
+	}
+
 	private static void setAngles(SpiritToolEntity entity, float tickDelta, MatrixStack matrices) {
 		final float swingRate = ((float) Math.PI * 2) / 4;
 		final float swingAmplitude = 0.6f;
@@ -55,6 +80,10 @@ public class SpiritToolRenderer extends EntityRenderer<SpiritToolEntity> {
 		matrices.multiply(RotationAxis.POSITIVE_X.rotation(shakeX));
 		matrices.multiply(RotationAxis.POSITIVE_Z.rotation(shakeZ));
 
+		setFacing(entity, matrices);
+	}
+
+	private static void setFacing(SpiritToolEntity entity, MatrixStack matrices) {
 		matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-entity.getYaw() + 90));
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.turtlearmymc.spirittools.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import com.turtlearmymc.spirittools.entities.SpiritToolIndex;
+import com.turtlearmymc.spirittools.metrics.OwnerMetrics;
+import com.turtlearmymc.spirittools.metrics.SpiritToolsMetrics;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@code /spirittools stats [owners]}, prints what spirit tools have cost the server since it started
+ */
+public final class SpiritToolsCommand {
+	private SpiritToolsCommand() {
+	}
+
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		dispatcher.register(CommandManager.literal("spirittools")
+				.requires(source -> source.hasPermissionLevel(2))
+				.then(CommandManager.literal("stats")
+						.executes(SpiritToolsCommand::printSummary)
+						.then(CommandManager.literal("owners").executes(SpiritToolsCommand::printOwners))));
+	}
+
+	private static int printSummary(CommandContext<ServerCommandSource> context) {
+		ServerCommandSource source = context.getSource();
+		int toolsAlive = 0;
+		for (ServerWorld world : source.getServer().getWorlds()) {
+			toolsAlive += SpiritToolIndex.getLoaded(world).size();
+		}
+		long searches = SpiritToolsMetrics.getVeinSearches();
+		long schedulerTicks = SpiritToolsMetrics.getSchedulerTicks();
+		long saves = SpiritToolsMetrics.getNbtSaves();
+
+		feedback(source, "Tools alive: %d, summoned: %d", toolsAlive, SpiritToolsMetrics.getToolsSummoned());
+		feedback(source, "Blocks mined: %d", SpiritToolsMetrics.getBlocksMined());
+		feedback(source, "Vein searches: %d, avg %.3f ms, max %.3f ms", searches,
+				searches > 0 ? millis(SpiritToolsMetrics.getVeinSearchNanos()) / searches : 0,
+				millis(SpiritToolsMetrics.getMaxVeinSearchNanos())
+		);
+		feedback(source, "Mining per tick: avg %.3f ms, max %.3f ms, deferred tool ticks: %d",
+				schedulerTicks > 0 ? millis(SpiritToolsMetrics.getSchedulerNanos()) / schedulerTicks : 0,
+				millis(SpiritToolsMetrics.getMaxSchedulerNanos()), SpiritToolsMetrics.getDeferredToolTicks()
+		);
+		feedback(source, "Saves: %d, avg schedule size %d bytes", saves,
+				saves > 0 ? SpiritToolsMetrics.getNbtSaveBytes() / saves : 0
+		);
+		feedback(source, "Tool lookups: %d", SpiritToolsMetrics.getToolLookups());
+		return toolsAlive;
+	}
+
+	private static int printOwners(CommandContext<ServerCommandSource> context) {
+		ServerCommandSource source = context.getSource();
+		Map<UUID, OwnerMetrics> owners = SpiritToolsMetrics.getOwners();
+		if (owners.isEmpty()) feedback(source, "No spirit tools have been used yet");
+		owners.forEach((uuid, metrics) -> {
+			ServerPlayerEntity player = source.getServer().getPlayerManager().getPlayer(uuid);
+			String name = player != null ? player.getEntityName() : uuid.toString();
+			feedback(source, "%s: %d summoned, %d searches, %d blocks mined, %d ticks taking %.3f ms", name,
+					metrics.getToolsSummoned(), metrics.getVeinSearches(), metrics.getBlocksMined(),
+					metrics.getToolTicks(), millis(metrics.getToolTickNanos())
+			);
+		});
+		return owners.size();
+	}
+
+	private static void feedback(ServerCommandSource source, String format, Object... args) {
+		source.sendFeedback(Text.literal(String.format(format, args)), false);
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
@@ -0,0 +1,55 @@
+package com.turtlearmymc.spirittools.entities;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Breaking progress of a spirit tool on one block. A tool has one slot per block it can break at the same time, each
+ * with its own breaker id for the block breaking progress shown to clients.
+ */
+public class BlockBreakSlot {
+	protected final int breakerId;
+	protected BlockPos pos;
+	// Bucket the block was taken from, credited once the block is broken
+	protected MaterialBucket bucket;
+	protected int ticks;
+	// Ticks to break the block that clients were last told about, 0 if they were not told yet
+	protected int sentTicksToBreak;
+
+	public BlockBreakSlot(int breakerId) {
+		this.breakerId = breakerId;
+	}
+
+	public int getBreakerId() {
+		return breakerId;
+	}
+
+	public BlockPos getPos() {
+		return pos;
+	}
+
+	public MaterialBucket getBucket() {
+		return bucket;
+	}
+
+	public int getTicks() {
+		return ticks;
+	}
+
+	public boolean isEmpty() {
+		return pos == null;
+	}
+
+	public void start(BlockPos pos, MaterialBucket bucket, int ticks) {
+		this.pos = pos;
+		this.bucket = bucket;
+		this.ticks = ticks;
+		sentTicksToBreak = 0;
+	}
+
+	public void clear() {
+		pos = null;
+		bucket = null;
+		ticks = 0;
+		sentTicksToBreak = 0;
+	}
+}
@@ -0,0 +1,101 @@
+package com.turtlearmymc.spirittools.entities;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+
+import java.util.function.Consumer;
+
+/**
+ * Drops collected by a spirit tool, merged by item and NBT as they are added. Counts are not limited to the max stack
+ * size and are only split into stacks when the items are handed out.
+ */
+public class DropInventory {
+	protected final Object2IntLinkedOpenHashMap<DropKey> counts = new Object2IntLinkedOpenHashMap<>();
+
+	public boolean isEmpty() {
+		return counts.isEmpty();
+	}
+
+	public void add(ItemStack stack) {
+		if (stack.isEmpty()) return;
+		counts.addTo(new DropKey(stack.getItem(), stack.getNbt()), stack.getCount());
+	}
+
+	public void clear() {
+		counts.clear();
+	}
+
+	/**
+	 * Hands out all items as stacks of at most the max stack size
+	 */
+	public void forEachStack(Consumer<ItemStack> consumer) {
+		for (Object2IntMap.Entry<DropKey> entry : counts.object2IntEntrySet()) {
+			DropKey key = entry.getKey();
+			int maxCount = key.item().getMaxCount();
+			for (int remaining = entry.getIntValue(); remaining > 0; remaining -= maxCount) {
+				consumer.accept(key.createStack(Math.min(remaining, maxCount)));
+			}
+		}
+	}
+
+	/**
+	 * Hands out up to the given number of stacks of at most the max stack size, removing them from the inventory. What
+	 * the consumer leaves of a stack is put back and ends the delivery.
+	 *
+	 * @return whether the inventory is empty afterwards
+	 */
+	public boolean deliver(int maxStacks, Consumer<ItemStack> consumer) {
+		for (int i = 0; i < maxStacks && !counts.isEmpty(); i++) {
+			DropKey key = counts.firstKey();
+			int count = counts.getInt(key);
+			ItemStack stack = key.createStack(Math.min(count, key.item().getMaxCount()));
+			int offered = stack.getCount();
+			consumer.accept(stack);
+			int remaining = count - offered + stack.getCount();
+			if (remaining == 0) {
+				counts.removeInt(key);
+			} else {
+				counts.put(key, remaining);
+			}
+			if (!stack.isEmpty()) break;
+		}
+		return counts.isEmpty();
+	}
+
+	public NbtList writeNbt() {
+		NbtList list = new NbtList();
+		for (Object2IntMap.Entry<DropKey> entry : counts.object2IntEntrySet()) {
+			NbtCompound nbt = new NbtCompound();
+			nbt.put("stack", entry.getKey().createStack(1).writeNbt(new NbtCompound()));
+			nbt.putInt("count", entry.getIntValue());
+			list.add(nbt);
+		}
+		return list;
+	}
+
+	public void readNbt(NbtList list) {
+		for (int i = 0; i < list.size(); i++) {
+			NbtCompound nbt = list.getCompound(i);
+			if (nbt.contains("stack", NbtElement.COMPOUND_TYPE)) {
+				ItemStack stack = ItemStack.fromNbt(nbt.getCompound("stack"));
+				if (!stack.isEmpty()) counts.addTo(new DropKey(stack.getItem(), stack.getNbt()), nbt.getInt("count"));
+			} else {
+				// Saves from before drops were merged store every stack on its own
+				add(ItemStack.fromNbt(nbt));
+			}
+		}
+	}
+
+	protected record DropKey(Item item, NbtCompound nbt) {
+		ItemStack createStack(int count) {
+			ItemStack stack = new ItemStack(item, count);
+			if (nbt != null) stack.setNbt(nbt.copy());
+			return stack;
+		}
+	}
+}
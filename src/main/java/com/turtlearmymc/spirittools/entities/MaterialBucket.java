@@ -0,0 +1,47 @@
+package com.turtlearmymc.spirittools.entities;
+
+import com.turtlearmymc.spirittools.mining.MiningSchedule;
+import com.turtlearmymc.spirittools.mining.VeinDiscovery;
+import net.minecraft.block.Block;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Positions of one block type a spirit tool has to mine, with their own valid block count and breaking speed, so that
+ * one tool can take several materials at once.
+ */
+public class MaterialBucket {
+	protected final Block material;
+	protected final MiningSchedule schedule = new MiningSchedule();
+	protected MiningProfile profile;
+	// Searches still feeding this bucket, worked through oldest first. They are not saved.
+	protected final Deque<VeinDiscovery> discoveries = new ArrayDeque<>();
+
+	public MaterialBucket(Block material) {
+		this.material = material;
+	}
+
+	public Block getMaterial() {
+		return material;
+	}
+
+	public MiningSchedule getSchedule() {
+		return schedule;
+	}
+
+	public Deque<VeinDiscovery> getDiscoveries() {
+		return discoveries;
+	}
+
+	/**
+	 * @return the cached breaking speed, or null if it was not computed yet
+	 */
+	public MiningProfile getProfile() {
+		return profile;
+	}
+
+	public void setProfile(MiningProfile profile) {
+		this.profile = profile;
+	}
+}
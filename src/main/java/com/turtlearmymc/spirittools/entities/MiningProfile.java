@@ -0,0 +1,70 @@
+package com.turtlearmymc.spirittools.entities;
+
+import net.minecraft.block.Block;
+import net.minecraft.item.ItemStack;
+
+/**
+ * Breaking speed of a spirit tool for one block type, computed once for a summon stack and submersion state.
+ */
+public class MiningProfile {
+	protected final Block material;
+	protected final ItemStack stack;
+	protected final boolean submerged;
+	protected final float breakingDelta;
+	protected final int ticksToBreak;
+
+	public MiningProfile(Block material, ItemStack stack, boolean submerged, float speed, float hardness) {
+		this.material = material;
+		this.stack = stack;
+		this.submerged = submerged;
+		breakingDelta = hardness == -1.0f ? 0.0f : speed / hardness / 30;
+		ticksToBreak = breakingDelta != 0 ? (int) Math.ceil(1 / breakingDelta) : 0;
+	}
+
+	/**
+	 * @return how many blocks can be broken within the given ticks, when every block after the first also takes 1
+	 * tick for the tool to find it
+	 */
+	public static int estimateBlocksBreakable(int remainingTicks, int ticksToBreak) {
+		if (remainingTicks <= 0) return 0;
+		return (remainingTicks + ticksToBreak) / (ticksToBreak + 1);
+	}
+
+	/**
+	 * Estimates how many blocks the slots can break when the buckets are mined one after the other, so that each bucket
+	 * gets the ticks the slots have left after the buckets before it
+	 *
+	 * @param slotTicks ticks each slot has left, used up by the estimate
+	 */
+	public static int estimateBlocksBreakable(int[] slotTicks, int[] bucketBlocks, int[] bucketTicksToBreak) {
+		int blocks = 0;
+		for (int bucket = 0; bucket < bucketBlocks.length; bucket++) {
+			int remainingBlocks = bucketBlocks[bucket];
+			int ticksToBreak = bucketTicksToBreak[bucket];
+			for (int i = 0; i < slotTicks.length && remainingBlocks > 0; i++) {
+				int slotBlocks =
+						Math.min(remainingBlocks, estimateBlocksBreakable(slotTicks[i] - ticksToBreak, ticksToBreak));
+				slotTicks[i] -= slotBlocks * (ticksToBreak + 1);
+				remainingBlocks -= slotBlocks;
+				blocks += slotBlocks;
+			}
+		}
+		return blocks;
+	}
+
+	public boolean isFor(Block material, ItemStack stack, boolean submerged) {
+		return this.material == material && this.stack == stack && this.submerged == submerged;
+	}
+
+	public Block getMaterial() {
+		return material;
+	}
+
+	public float getBreakingDelta() {
+		return breakingDelta;
+	}
+
+	public int getTicksToBreak() {
+		return ticksToBreak;
+	}
+}
@@ -0,0 +1,38 @@
+package com.turtlearmymc.spirittools.entities;
+
+import com.turtlearmymc.spirittools.SpiritTools;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.UUID;
+
+/**
+ * Counts the drops each owner's tools dropped at the owner's feet in the current server tick, so that the limit set by
+ * the {@link SpiritTools#MAX_OVERFLOW_DROPS_PER_TICK} game rule is shared by a leader, its workers and every delivery
+ * in the tick
+ */
+public final class OverflowDropBudget {
+	private static final Object2IntOpenHashMap<UUID> DROPS_BY_OWNER = new Object2IntOpenHashMap<>();
+	private static int currentTick = -1;
+
+	private OverflowDropBudget() {
+	}
+
+	/**
+	 * @return whether the owner may have another drop this tick, which is then counted
+	 */
+	public static boolean tryTake(UUID owner, int tick, int limit) {
+		if (tick != currentTick) {
+			DROPS_BY_OWNER.clear();
+			currentTick = tick;
+		}
+		int drops = DROPS_BY_OWNER.getInt(owner);
+		if (drops >= limit) return false;
+		DROPS_BY_OWNER.put(owner, drops + 1);
+		return true;
+	}
+
+	public static void clear() {
+		DROPS_BY_OWNER.clear();
+		currentTick = -1;
+	}
+}
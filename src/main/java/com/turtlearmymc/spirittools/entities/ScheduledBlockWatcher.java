@@ -0,0 +1,54 @@
+package com.turtlearmymc.spirittools.entities;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Index of the spirit tools with blocks scheduled in each chunk section, so that block changes in those sections can
+ * be passed on to them instead of the tools reading every scheduled block again before mining it.
+ */
+public final class ScheduledBlockWatcher {
+	// Only used on the server thread
+	private static final Map<World, Long2ObjectOpenHashMap<List<SpiritToolEntity>>> WATCHERS_BY_WORLD =
+			new WeakHashMap<>();
+
+	private ScheduledBlockWatcher() {
+	}
+
+	public static void onEntityUnload(Entity entity, World world) {
+		if (entity instanceof SpiritToolEntity tool) tool.unwatchSections();
+	}
+
+	public static void watch(SpiritToolEntity tool, long sectionPos) {
+		WATCHERS_BY_WORLD.computeIfAbsent(tool.world, world -> new Long2ObjectOpenHashMap<>())
+				.computeIfAbsent(sectionPos, section -> new ArrayList<>(1)).add(tool);
+	}
+
+	public static void unwatch(SpiritToolEntity tool, long sectionPos) {
+		Long2ObjectOpenHashMap<List<SpiritToolEntity>> sections = WATCHERS_BY_WORLD.get(tool.world);
+		if (sections == null) return;
+		List<SpiritToolEntity> tools = sections.get(sectionPos);
+		if (tools == null) return;
+		tools.remove(tool);
+		if (tools.isEmpty()) sections.remove(sectionPos);
+	}
+
+	public static void onBlockChanged(World world, BlockPos pos, BlockState oldState, BlockState newState) {
+		// Scheduled positions only care about the block type
+		if (oldState.getBlock() == newState.getBlock()) return;
+		Long2ObjectOpenHashMap<List<SpiritToolEntity>> sections = WATCHERS_BY_WORLD.get(world);
+		if (sections == null) return;
+		List<SpiritToolEntity> tools = sections.get(ChunkSectionPos.fromBlockPos(pos.asLong()));
+		if (tools == null) return;
+		for (SpiritToolEntity tool : tools) tool.onWatchedBlockChanged(pos, newState);
+	}
+}
@@ -1,6 +1,23 @@
 package com.turtlearmymc.spirittools.entities;
 
+import com.turtlearmymc.spirittools.SpiritTools;
 import com.turtlearmymc.spirittools.items.SpiritToolItem;
+import com.turtlearmymc.spirittools.metrics.OwnerMetrics;
+import com.turtlearmymc.spirittools.metrics.SpiritToolsMetrics;
+import com.turtlearmymc.spirittools.metrics.VeinSearchEvent;
+import com.turtlearmymc.spirittools.mining.BatchedBlockBreaker;
+import com.turtlearmymc.spirittools.mining.BlockMatcher;
+import com.turtlearmymc.spirittools.mining.ExperienceCapture;
+import com.turtlearmymc.spirittools.mining.MiningQueue;
+import com.turtlearmymc.spirittools.mining.MiningSchedule;
+import com.turtlearmymc.spirittools.mining.SectionCachedBlockReader;
+import com.turtlearmymc.spirittools.mining.VeinDiscovery;
+import com.turtlearmymc.spirittools.network.BreakProgressPacket;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
@@ -11,6 +28,7 @@ import net.minecraft.entity.EntityType;
 import net.minecraft.entity.ExperienceOrbEntity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
@@ -18,41 +36,68 @@ import net.minecraft.nbt.NbtHelper;
 import net.minecraft.nbt.NbtList;
 import net.minecraft.registry.Registries;
 import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundEvents;
+import net.minecraft.util.Hand;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.ItemScatterer;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public abstract class SpiritToolEntity extends Entity {
 	public static final int SUMMON_RANGE = 20;
+	public static final int MAX_PARALLEL_BLOCKS = 16;
 	protected static final int DESPAWN_AGE = 200;
+	public static final int MAX_SWARM_SIZE = 8;
+	// Stacks handed to the owner on each delivery while mining
+	protected static final int DROP_DELIVERY_STACKS = 9;
+	// A bucket is only split among workers while it has more blocks than this left
+	protected static final int SWARM_SPLIT_BLOCKS = 64;
+	protected static final int NO_SLOT = -2;
+	protected static final int OFF_HAND_SLOT = -1;
 
 	protected int toolAge;
 	protected ItemStack summonStack;
 	protected UUID ownerUuid;
 	protected PlayerEntity owner;
-
-	protected List<ItemStack> inventory;
+	// Where the summon stack was last found in the owner's inventory, together with the stack and its UUID tag at
+	// that time. As long as both are still in place, the slot does not need to be searched again.
+	protected int summonSlot = NO_SLOT;
+	protected ItemStack summonSlotStack;
+	protected NbtElement summonSlotTag;
+	protected OwnerMetrics ownerMetrics;
+
+	protected DropInventory inventory;
 	protected int xpAmount;
-
-	protected Set<BlockPos> scheduledMiningPositions;
-	protected Block mineMaterial;
-	protected int miningTicks;
-	protected BlockPos miningAt;
-	protected int prevBreakStage;
+	// Set once the tool went back to its owner with more drops left than could be handed over in one tick
+	protected boolean returning;
+
+	// One bucket per material, mined in the order they were first scheduled
+	protected final Map<Block, MaterialBucket> buckets = new LinkedHashMap<>();
+	// Set on swarm workers to the tool that handed them their blocks, whose UUID the summon stack carries
+	protected UUID leaderUuid;
+	protected final List<UUID> workerUuids = new ArrayList<>();
+	// Chunk sections registered with the ScheduledBlockWatcher
+	protected final LongOpenHashSet watchedSections = new LongOpenHashSet();
+	protected final List<BlockBreakSlot> miningSlots;
+	protected final BatchedBlockBreaker blockBreaker = new BatchedBlockBreaker();
+	// Breaking starts and stops of the current tick, sent to clients together at the end of it
+	protected final BreakProgressPacket breakProgress = new BreakProgressPacket();
 
 	public SpiritToolEntity(EntityType<?> type, World world) {
 		super(type, world);
-		inventory = new ArrayList<>();
-		scheduledMiningPositions = new HashSet<>();
+		inventory = new DropInventory();
+		miningSlots = new ArrayList<>();
 	}
 
 	public int getTicksUntilDespawn() {
@@ -60,17 +105,17 @@ public abstract class SpiritToolEntity extends Entity {
 	}
 
 	public PlayerEntity getOwner() {
-		if (owner != null && !owner.isRemoved()) {
-			return owner;
-		}
-		if (getOwnerUUID() != null) {
-			return world.getPlayerByUuid(getOwnerUUID());
+		if ((owner == null || owner.isRemoved()) && getOwnerUUID() != null) {
+			// The cached player is gone after a respawn or reconnect, so it is looked up again
+			owner = world.getPlayerByUuid(getOwnerUUID());
+			summonSlot = NO_SLOT;
 		}
-		return null;
+		return owner;
 	}
 
 	public void setOwner(PlayerEntity owner) {
 		this.owner = owner;
+		summonSlot = NO_SLOT;
 		setOwnerUUID(owner != null ? owner.getUuid() : null);
 	}
 
@@ -88,55 +133,218 @@ public abstract class SpiritToolEntity extends Entity {
 
 	public void setOwnerUUID(UUID ownerUuid) {
 		this.ownerUuid = ownerUuid;
+		ownerMetrics = null;
 	}
 
-	public Block getMineMaterial() {
-		return mineMaterial;
+	public OwnerMetrics getOwnerMetrics() {
+		if (ownerMetrics == null) {
+			ownerMetrics = SpiritToolsMetrics.forOwner(getOwnerUUID() != null ? getOwnerUUID() : Util.NIL_UUID);
+		}
+		return ownerMetrics;
 	}
 
 	public void resetDespawnTimer() {
 		toolAge = 0;
+		forEachWorker(worker -> worker.toolAge = 0);
+	}
+
+	public boolean isWorker() {
+		return leaderUuid != null;
+	}
+
+	/**
+	 * @return the UUID the summon stack refers to, which for workers is the one of their leader
+	 */
+	protected UUID getSummonUuid() {
+		return leaderUuid != null ? leaderUuid : getUuid();
 	}
 
-	protected int estimateBlocksBreakableWithinTime(BlockPos pos) {
-		int estimatedTicksToBreak = calcTicksToBreak(mineMaterial.getDefaultState(), pos);
-		int remainingTicks = getTicksUntilDespawn() + miningTicks - estimatedTicksToBreak;
-		--remainingTicks; // 1 tick is removed because the tool is aged before mining
-		if (miningAt == null) --remainingTicks; // 1 tick is removed for the time it's going to take to find the next block
-		int blocks = 0;
-		// 1 tick is removed at the end of each loop for the time it takes the tool to find the next block
-		for (; remainingTicks > 0; remainingTicks -= estimatedTicksToBreak + 1) {
-			blocks++;
+	protected void forEachWorker(Consumer<SpiritToolEntity> action) {
+		for (UUID workerUuid : workerUuids) {
+			SpiritToolEntity worker = SpiritToolIndex.get(world, workerUuid);
+			if (worker != null) action.accept(worker);
 		}
-		return blocks;
 	}
 
+	protected boolean hasActiveWorkers() {
+		workerUuids.removeIf(workerUuid -> SpiritToolIndex.get(world, workerUuid) == null);
+		return !workerUuids.isEmpty();
+	}
+
+	/**
+	 * Hands the farthest chunk of a large bucket to a new worker, at most one per tick, so that every worker mines
+	 * its own compact part of the schedule
+	 */
+	protected void trySpawnWorker() {
+		int swarmSize = world.getGameRules().getInt(SpiritTools.SWARM_SIZE);
+		if (swarmSize == 0 || isWorker()) return;
+		// Also forgets workers that are gone
+		if (hasActiveWorkers() && workerUuids.size() >= swarmSize) return;
+
+		for (MaterialBucket bucket : buckets.values()) {
+			if (bucket.getSchedule().size() <= SWARM_SPLIT_BLOCKS) continue;
+			LongSet cluster = bucket.getSchedule().takeFarthestChunk(getX(), getZ());
+			if (cluster.isEmpty()) continue;
+			int previousEstimatedBreakableBlocks = estimateBreakableScheduledBlocks(getBlockPos());
+			spawnWorker(bucket.getMaterial(), cluster);
+			// The worker mines the chunk with its own time, which breaks more blocks than the leader would have
+			chargeSummonStack(estimateBreakableScheduledBlocks(getBlockPos()) - previousEstimatedBreakableBlocks);
+			return;
+		}
+	}
+
+	protected void spawnWorker(Block material, LongSet cluster) {
+		SpiritToolEntity worker = (SpiritToolEntity) getType().create(world);
+		if (worker == null) {
+			scheduleToMine(material, cluster);
+			return;
+		}
+		worker.setPosition(getPos());
+		worker.setOwner(getOwner());
+		worker.setSummonStack(getSummonStack());
+		worker.leaderUuid = getUuid();
+		// Workers despawn with their leader, the summon stack is charged for what they can break until then
+		worker.toolAge = toolAge;
+		worker.scheduleToMine(material, cluster);
+
+		world.spawnEntity(worker);
+		workerUuids.add(worker.getUuid());
+		SpiritToolsMetrics.recordToolSummoned(getOwnerMetrics());
+	}
+
+	protected int getParallelBlockLimit() {
+		return world.getGameRules().getInt(SpiritTools.PARALLEL_MINING_BLOCKS);
+	}
+
+	/**
+	 * Buckets are mined one after the other, so each bucket gets the ticks the slots have left after the buckets
+	 * before it.
+	 *
+	 * @return how many of the scheduled blocks can be broken before the tool and its workers despawn
+	 */
 	public int estimateBreakableScheduledBlocks(BlockPos pos) {
-		return Math.min(
-				estimateBlocksBreakableWithinTime(pos),
-				(int) scheduledMiningPositions.stream().filter(this::isPosOfMineMaterial).count()
-		);
+		int estimatedBreakableBlocks = estimateOwnBreakableBlocks();
+		// Workers mine with the time of the summon stack as well
+		for (UUID workerUuid : workerUuids) {
+			SpiritToolEntity worker = SpiritToolIndex.get(world, workerUuid);
+			if (worker != null) estimatedBreakableBlocks += worker.estimateOwnBreakableBlocks();
+		}
+		return estimatedBreakableBlocks;
 	}
 
 	/**
-	 * @return scheduled mining positions
+	 * @return how many of the blocks scheduled on this tool alone can be broken before it despawns
 	 */
-	public Set<BlockPos> scheduleToMine(Block mineMaterial, Set<BlockPos> miningPositions) {
-		Set<BlockPos> newlyScheduled = new HashSet<>(miningPositions);
-		newlyScheduled.removeAll(scheduledMiningPositions);
+	protected int estimateOwnBreakableBlocks() {
+		int parallelBlockLimit = getParallelBlockLimit();
+		// Every slot breaks blocks independently of the others
+		int[] slotTicks = new int[parallelBlockLimit];
+		for (int i = 0; i < parallelBlockLimit; i++) {
+			BlockBreakSlot slot = i < miningSlots.size() ? miningSlots.get(i) : null;
+			int remainingTicks = getTicksUntilDespawn();
+			--remainingTicks; // 1 tick is removed because the tool is aged before mining
+			if (slot == null || slot.isEmpty()) {
+				--remainingTicks; // 1 tick is removed for the time it's going to take to find the next block
+			} else {
+				remainingTicks += slot.ticks;
+			}
+			slotTicks[i] = remainingTicks;
+		}
 
-		this.mineMaterial = mineMaterial;
-		scheduledMiningPositions.addAll(miningPositions);
+		int[] bucketBlocks = new int[buckets.size()];
+		int[] bucketTicksToBreak = new int[buckets.size()];
+		int bucketIndex = 0;
+		for (MaterialBucket bucket : buckets.values()) {
+			bucketBlocks[bucketIndex] = bucket.getSchedule().getValidBlocks();
+			// Empty buckets take no time, so their profile does not need to be computed
+			if (bucketBlocks[bucketIndex] > 0) {
+				bucketTicksToBreak[bucketIndex] = getMiningProfile(bucket).getTicksToBreak();
+			}
+			++bucketIndex;
+		}
+		return MiningProfile.estimateBlocksBreakable(slotTicks, bucketBlocks, bucketTicksToBreak);
+	}
+
+	/**
+	 * @return how many of the mining positions were newly scheduled
+	 */
+	public int scheduleToMine(Block material, LongSet miningPositions) {
+		int newlyScheduled = 0;
+
+		MiningSchedule schedule = getBucket(material).getSchedule();
+		for (LongIterator it = miningPositions.iterator(); it.hasNext(); ) {
+			long pos = it.nextLong();
+			if (isBeingMined(pos)) continue;
+			if (!schedule.add(pos)) continue;
+			++newlyScheduled;
+			watchSectionOf(pos);
+		}
 
 		return newlyScheduled;
 	}
 
+	/**
+	 * Starts searching the vein around the center over the next ticks, with the found blocks scheduled as they come
+	 */
+	public VeinDiscovery startDiscovery(Block material, BlockPos center, double range) {
+		VeinDiscovery discovery = new VeinDiscovery(center, range);
+		getBucket(material).getDiscoveries().addLast(discovery);
+		return discovery;
+	}
+
+	/**
+	 * @return whether the position is already scheduled, being mined or reached by a running search
+	 */
+	public boolean isScheduledOrDiscovered(Block material, long pos) {
+		MaterialBucket bucket = buckets.get(material);
+		if (bucket == null) return false;
+		if (bucket.getSchedule().contains(pos) || isBeingMined(pos)) return true;
+		for (VeinDiscovery discovery : bucket.getDiscoveries()) {
+			if (discovery.hasVisited(pos)) return true;
+		}
+		for (UUID workerUuid : workerUuids) {
+			SpiritToolEntity worker = SpiritToolIndex.get(world, workerUuid);
+			if (worker != null && worker.isScheduledOrDiscovered(material, pos)) return true;
+		}
+		return false;
+	}
+
+	protected void watchSectionOf(long pos) {
+		if (world.isClient) return;
+		long section = ChunkSectionPos.fromBlockPos(pos);
+		if (watchedSections.add(section)) ScheduledBlockWatcher.watch(this, section);
+	}
+
+	public void unwatchSections() {
+		for (LongIterator it = watchedSections.iterator(); it.hasNext(); ) {
+			ScheduledBlockWatcher.unwatch(this, it.nextLong());
+		}
+		watchedSections.clear();
+	}
+
+	/**
+	 * Drops a scheduled or currently mined position once its block is no longer of the material it was scheduled for
+	 */
+	public void onWatchedBlockChanged(BlockPos pos, BlockState state) {
+		long packedPos = pos.asLong();
+		for (MaterialBucket bucket : buckets.values()) {
+			if (!state.isOf(bucket.getMaterial())) bucket.getSchedule().remove(packedPos);
+		}
+		for (BlockBreakSlot slot : miningSlots) {
+			if (slot.isEmpty() || !slot.pos.equals(pos) || state.isOf(slot.bucket.getMaterial())) continue;
+			// The block is gone without being mined, so it no longer counts
+			slot.bucket.getSchedule().markBroken();
+			resetBlockBreakProgress(slot);
+		}
+	}
+
 	@Override
 	public void tick() {
 		if (world.isClient()) {
 			clientTick();
 		} else {
-			serverTick();
+			// Mining runs at the end of the server tick, when the scheduler gets to it
+			SpiritToolScheduler.schedule(this);
 		}
 		super.tick();
 	}
@@ -145,6 +353,18 @@ public abstract class SpiritToolEntity extends Entity {
 	}
 
 	protected void serverTick() {
+		if (returning) {
+			// The drops are only kept for an owner that is still nearby, the tool would stop ticking if it followed
+			// the owner out of the loaded chunks
+			if (!ownerNearby()) {
+				dropItems();
+				discard();
+				return;
+			}
+			if (tryGiveItemsToOwner()) discard();
+			return;
+		}
+
 		if (++toolAge >= DESPAWN_AGE) {
 			tryReturnToOwner();
 			return;
@@ -159,73 +379,201 @@ public abstract class SpiritToolEntity extends Entity {
 			return;
 		}
 
-		if (mineMaterial == null) return;
-		if (miningAt == null) {
-			if (!findNextMiningBlock()) {
-				tryReturnToOwner();
-				return;
+		if (buckets.isEmpty()) return;
+		discover();
+		trySpawnWorker();
+		int parallelBlockLimit = getParallelBlockLimit();
+		while (miningSlots.size() < parallelBlockLimit) addMiningSlot();
+
+		boolean mining = false;
+		for (int i = 0; i < miningSlots.size(); i++) {
+			BlockBreakSlot slot = miningSlots.get(i);
+			if (slot.isEmpty()) {
+				// Slots above a lowered limit are left to finish their block but are not refilled
+				if (i < parallelBlockLimit && findNextMiningBlock(slot)) {
+					lookAt(slot.pos);
+					mining = true;
+				}
+				// Take 1 tick before beginning to mine a block
+				continue;
 			}
-			lookAt(miningAt);
-			// Take 1 tick before beginning to mine a block
+			mining = true;
+			// A block in a chunk that got unloaded is picked up again once the chunk is back
+			if (isChunkLoaded(ChunkPos.toLong(slot.pos.getX() >> 4, slot.pos.getZ() >> 4))) tickMiningSlot(slot);
+		}
+		// Blocks finished in the same tick are removed together
+		blockBreaker.breakAll((ServerWorld) world, this);
+		breakProgress.send(this);
+
+		int deliveryInterval = world.getGameRules().getInt(SpiritTools.DROP_DELIVERY_INTERVAL);
+		if (deliveryInterval > 0 && age % deliveryInterval == 0 && getOwner() != null) {
+			deliverDrops(DROP_DELIVERY_STACKS);
+		}
+
+		// Positions left in the schedule are in unloaded chunks, so wait for them until the tool despawns. Leaders also
+		// stay until their workers are done, so that recalling the summon stack still reaches all of them.
+		if (!mining && !hasScheduledBlocks() && !isDiscovering() && !hasActiveWorkers()) tryReturnToOwner();
+	}
+
+	/**
+	 * Runs the searches of every bucket within the node budget for this tick and pays for the blocks they found with
+	 * summon stack durability, the same way a swing pays for a whole search
+	 */
+	protected void discover() {
+		if (!isDiscovering()) return;
+		int budget = world.getGameRules().getInt(SpiritTools.DISCOVERY_NODES_PER_TICK);
+
+		int previousEstimatedBreakableBlocks = estimateBreakableScheduledBlocks(getBlockPos());
+		SectionCachedBlockReader reader = new SectionCachedBlockReader(world);
+		LongOpenHashSet found = new LongOpenHashSet();
+		for (MaterialBucket bucket : buckets.values()) {
+			Deque<VeinDiscovery> discoveries = bucket.getDiscoveries();
+			BlockMatcher matcher = reader.matcherFor(bucket.getMaterial());
+			while (budget > 0 && !discoveries.isEmpty()) {
+				VeinDiscovery discovery = discoveries.peekFirst();
+				int foundBefore = found.size();
+				VeinSearchEvent event = SpiritToolsMetrics.beginVeinSearch();
+				long start = System.nanoTime();
+				budget -= discovery.step(matcher, budget, found::add);
+				SpiritToolsMetrics.recordVeinSearchStep(event, System.nanoTime() - start, found.size() - foundBefore,
+						discovery.getRange(), discovery.isDone());
+				if (discovery.isDone()) discoveries.pollFirst();
+			}
+			if (found.isEmpty()) continue;
+			scheduleToMine(bucket.getMaterial(), found);
+			found.clear();
+		}
+
+		chargeSummonStack(estimateBreakableScheduledBlocks(getBlockPos()) - previousEstimatedBreakableBlocks);
+	}
+
+	/**
+	 * Damages the summon stack in the owner's inventory for blocks the tool took on without a swing paying for them
+	 */
+	protected void chargeSummonStack(int damageAmount) {
+		if (damageAmount <= 0) return;
+		// The summon slot was just found by the range check, so its stack is the one in the owner's inventory
+		ItemStack stack = summonSlot != NO_SLOT ? summonSlotStack : getSummonStack();
+		Hand hand = summonSlot == OFF_HAND_SLOT ? Hand.OFF_HAND : Hand.MAIN_HAND;
+		stack.damage(damageAmount, getOwner(), p -> p.sendToolBreakStatus(hand));
+	}
+
+	protected boolean isDiscovering() {
+		for (MaterialBucket bucket : buckets.values()) {
+			if (!bucket.getDiscoveries().isEmpty()) return true;
+		}
+		return false;
+	}
+
+	protected void addMiningSlot() {
+		int index = miningSlots.size();
+		// The first slot shows progress as the tool itself, the others use ids that no entity can have
+		miningSlots.add(new BlockBreakSlot(index == 0 ? getId() : -(getId() * MAX_PARALLEL_BLOCKS + index)));
+	}
+
+	protected void tickMiningSlot(BlockBreakSlot slot) {
+		++slot.ticks;
+		BlockState stateAt = world.getBlockState(slot.pos);
+		// Blocks can change unwatched, e.g. while the tool was unloaded, and are never mined as something else
+		if (!stateAt.isOf(slot.bucket.getMaterial())) {
+			slot.bucket.getSchedule().markBroken();
+			resetBlockBreakProgress(slot);
 			return;
 		}
-		++miningTicks;
-		BlockState stateAt = world.getBlockState(miningAt);
-		float breakProgress = calcBlockBreakingDelta(stateAt, miningAt) * miningTicks;
-		int breakStage = (int) (breakProgress * 10f);
-		if (breakProgress >= 1) {
-			finishBreakingBlock(stateAt);
-		} else if (breakStage != prevBreakStage) {
-			world.setBlockBreakingInfo(getId(), miningAt, breakStage);
-			prevBreakStage = breakStage;
+		float delta = calcBlockBreakingDelta(stateAt, slot.pos);
+		if (delta * slot.ticks >= 1) {
+			finishBreakingBlock(slot, stateAt);
+			return;
+		}
+		// Clients animate the break stages themselves, so they only need to hear again when the speed changed
+		int ticksToBreak = (int) Math.ceil(1 / delta);
+		if (ticksToBreak != slot.sentTicksToBreak) {
+			breakProgress.start(slot.breakerId, slot.pos, slot.ticks, ticksToBreak);
+			slot.sentTicksToBreak = ticksToBreak;
 		}
 	}
 
-	protected void finishBreakingBlock(BlockState state) {
-		addDropsToInventory(miningAt, state);
-		state.onStacksDropped((ServerWorld) world, miningAt, getSummonStack(), true);
-		collectXp(miningAt);
-		world.breakBlock(miningAt, false, this);
-		resetBlockBreakProgress();
+	protected boolean isBeingMined(long pos) {
+		for (BlockBreakSlot slot : miningSlots) {
+			if (!slot.isEmpty() && slot.pos.asLong() == pos) return true;
+		}
+		return false;
+	}
+
+	protected void finishBreakingBlock(BlockBreakSlot slot, BlockState state) {
+		BlockPos pos = slot.pos;
+		addDropsToInventory(pos, state);
+		ExperienceCapture.begin((ServerWorld) world);
+		try {
+			state.onStacksDropped((ServerWorld) world, pos, getSummonStack(), true);
+		} finally {
+			xpAmount += ExperienceCapture.end();
+		}
+		blockBreaker.add(pos);
+		slot.bucket.getSchedule().markBroken();
+		SpiritToolsMetrics.recordBlockMined(getOwnerMetrics());
+		resetBlockBreakProgress(slot);
 	}
 
-	protected void resetBlockBreakProgress() {
-		world.setBlockBreakingInfo(getId(), miningAt, -1);
-		miningAt = null;
-		miningTicks = 0;
-		prevBreakStage = 0;
+	protected void resetBlockBreakProgress(BlockBreakSlot slot) {
+		if (slot.sentTicksToBreak != 0) breakProgress.stop(slot.breakerId, slot.pos);
+		slot.clear();
+	}
+
+	@Override
+	public void onStartedTrackingBy(ServerPlayerEntity player) {
+		super.onStartedTrackingBy(player);
+		// Players coming into range also see the blocks that are already being broken
+		BreakProgressPacket progress = new BreakProgressPacket();
+		for (BlockBreakSlot slot : miningSlots) {
+			if (!slot.isEmpty() && slot.sentTicksToBreak != 0) {
+				progress.start(slot.breakerId, slot.pos, slot.ticks, slot.sentTicksToBreak);
+			}
+		}
+		progress.send(player);
 	}
 
-	protected void collectXp(BlockPos pos) {
-		world.getEntitiesByType(EntityType.EXPERIENCE_ORB, new Box(pos), orb -> orb.age == 0 && !orb.isRemoved())
-				.forEach(orb -> {
-					xpAmount += orb.getExperienceAmount();
-					orb.discard();
-				});
+	@Override
+	public void onStoppedTrackingBy(ServerPlayerEntity player) {
+		super.onStoppedTrackingBy(player);
+		BreakProgressPacket progress = new BreakProgressPacket();
+		for (BlockBreakSlot slot : miningSlots) {
+			if (!slot.isEmpty() && slot.sentTicksToBreak != 0) progress.stop(slot.breakerId, slot.pos);
+		}
+		progress.send(player);
 	}
 
 	public void tryReturnToOwner() {
-		if (getOwner() != null) setPosition(getOwner().getPos());
+		forEachWorker(SpiritToolEntity::tryReturnToOwner);
+		boolean ownerNearby = ownerNearby();
+		if (ownerNearby) setPosition(getOwner().getPos());
 		playSound(SoundEvents.ENTITY_ALLAY_ITEM_TAKEN,2, 1);
-		tryGiveItemsToOwner();
 		tryGiveXpToOwner();
 		tryClearItemNbt();
+		if (!tryGiveItemsToOwner()) {
+			// The remaining drops are handed over on the next ticks instead, or dropped here for an owner far away
+			if (ownerNearby) {
+				returning = true;
+				return;
+			}
+			dropItems();
+		}
 		discard();
 	}
 
 	protected void addDropsToInventory(BlockPos pos, BlockState state) {
-		inventory.addAll(getDropStacks(pos, state));
+		getDropStacks(pos, state).forEach(inventory::add);
 	}
 
 	protected List<ItemStack> getDropStacks(BlockPos pos, BlockState state) {
 		BlockEntity blockEntity = state.hasBlockEntity() ? world.getBlockEntity(pos) : null;
-		return Block.getDroppedStacks(state, (ServerWorld) world, miningAt, blockEntity, this, getSummonStack());
+		return Block.getDroppedStacks(state, (ServerWorld) world, pos, blockEntity, this, getSummonStack());
 	}
 
 	protected boolean isSummonStack(ItemStack stack) {
 		if (!(stack.getItem() instanceof SpiritToolItem<?>)) return false;
 		if (!stack.hasNbt() || !stack.getNbt().contains("summonedTool")) return false;
-		return getUuid().equals(stack.getNbt().getUuid("summonedTool"));
+		return getSummonUuid().equals(stack.getNbt().getUuid("summonedTool"));
 	}
 
 	// Returns a list instead of a single item in case summon item was duplicated
@@ -240,16 +588,54 @@ public abstract class SpiritToolEntity extends Entity {
 	}
 
 	protected boolean holderWithinRange() {
-		if (getOwner() == null || squaredDistanceTo(getOwner()) >= SUMMON_RANGE * SUMMON_RANGE) return false;
-		return !getSummonStacks().isEmpty();
+		return ownerNearby() && ownerHasSummonStack();
+	}
+
+	protected boolean ownerNearby() {
+		PlayerEntity owner = getOwner();
+		return owner != null && owner.world == world && squaredDistanceTo(owner) < SUMMON_RANGE * SUMMON_RANGE;
+	}
+
+	protected boolean ownerHasSummonStack() {
+		PlayerEntity owner = getOwner();
+		if (summonSlot != NO_SLOT) {
+			ItemStack stack = getOwnerStack(owner, summonSlot);
+			if (stack == summonSlotStack && stack.hasNbt() && stack.getNbt().get("summonedTool") == summonSlotTag) {
+				return true;
+			}
+		}
+
+		// The cached slot was changed, so search the inventory again
+		summonSlot = NO_SLOT;
+		PlayerInventory inventory = owner.getInventory();
+		for (int slot = 0; slot < inventory.main.size(); slot++) {
+			if (isSummonStack(inventory.main.get(slot))) return cacheSummonSlot(owner, slot);
+		}
+		if (isSummonStack(owner.getOffHandStack())) return cacheSummonSlot(owner, OFF_HAND_SLOT);
+		return false;
+	}
+
+	protected boolean cacheSummonSlot(PlayerEntity owner, int slot) {
+		summonSlot = slot;
+		summonSlotStack = getOwnerStack(owner, slot);
+		summonSlotTag = summonSlotStack.getNbt().get("summonedTool");
+		return true;
+	}
+
+	protected static ItemStack getOwnerStack(PlayerEntity owner, int slot) {
+		return slot == OFF_HAND_SLOT ? owner.getOffHandStack() : owner.getInventory().main.get(slot);
 	}
 
 	public int calcTicksToBreak(BlockState state, BlockPos pos) {
+		MaterialBucket bucket = buckets.get(state.getBlock());
+		if (bucket != null) return getMiningProfile(bucket).getTicksToBreak();
 		float delta = calcBlockBreakingDelta(state, pos);
 		return delta != 0 ? (int) Math.ceil(1 / delta) : 0;
 	}
 
 	protected float calcBlockBreakingDelta(BlockState state, BlockPos pos) {
+		MaterialBucket bucket = buckets.get(state.getBlock());
+		if (bucket != null) return getMiningProfile(bucket).getBreakingDelta();
 		float hardness = state.getHardness(world, pos);
 		if (hardness == -1.0f) {
 			return 0.0f;
@@ -257,6 +643,22 @@ public abstract class SpiritToolEntity extends Entity {
 		return getBlockBreakingSpeed() / hardness / 30;
 	}
 
+	/**
+	 * @return the breaking speed for the bucket's material, only recomputed when the summon stack or whether the tool
+	 * is under water changed
+	 */
+	protected MiningProfile getMiningProfile(MaterialBucket bucket) {
+		boolean submerged = isSubmergedIn(FluidTags.WATER);
+		MiningProfile profile = bucket.getProfile();
+		if (profile == null || !profile.isFor(bucket.getMaterial(), getSummonStack(), submerged)) {
+			float hardness = bucket.getMaterial().getDefaultState().getHardness(world, getBlockPos());
+			profile = new MiningProfile(
+					bucket.getMaterial(), getSummonStack(), submerged, getBlockBreakingSpeed(), hardness);
+			bucket.setProfile(profile);
+		}
+		return profile;
+	}
+
 	protected float getBlockBreakingSpeed() {
 		ItemStack stack = getSummonStack();
 		float speed = ((SpiritToolItem<?>) stack.getItem()).spiritToolMiningSpeed();
@@ -271,15 +673,36 @@ public abstract class SpiritToolEntity extends Entity {
 		return speed;
 	}
 
-	protected void tryGiveItemsToOwner() {
-		if (getOwner() != null) {
-			inventory.forEach(getOwner().getInventory()::offerOrDrop);
-			inventory.clear();
-		}
+	/**
+	 * @return whether no drops are left to hand over, which is also the case without an owner to give them to
+	 */
+	protected boolean tryGiveItemsToOwner() {
+		if (getOwner() == null) return true;
+		return deliverDrops(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Offers up to the given number of stacks to the owner. What does not fit is dropped at the owner's feet up to the
+	 * overflow limit of the owner for this tick, anything past it is kept for a later tick.
+	 *
+	 * @return whether the inventory is empty afterwards
+	 */
+	protected boolean deliverDrops(int maxStacks) {
+		PlayerEntity owner = getOwner();
+		int overflowLimit = world.getGameRules().getInt(SpiritTools.MAX_OVERFLOW_DROPS_PER_TICK);
+		int tick = world.getServer().getTicks();
+		return inventory.deliver(maxStacks, stack -> {
+			owner.getInventory().offer(stack, true);
+			if (stack.isEmpty()) return;
+			// The limit is shared by all tools of the owner and all deliveries in the tick
+			if (overflowLimit > 0 && !OverflowDropBudget.tryTake(owner.getUuid(), tick, overflowLimit)) return;
+			owner.dropItem(stack.copy(), false);
+			stack.setCount(0);
+		});
 	}
 
 	protected void dropItems() {
-		inventory.forEach(stack -> ItemScatterer.spawn(world, getX(), getY(), getZ(), stack));
+		inventory.forEachStack(stack -> ItemScatterer.spawn(world, getX(), getY(), getZ(), stack));
 		inventory.clear();
 	}
 
@@ -296,14 +719,19 @@ public abstract class SpiritToolEntity extends Entity {
 	}
 
 	protected void tryClearItemNbt() {
+		// The summon stack belongs to the leader
+		if (isWorker()) return;
 		getSummonStacks().forEach(stack -> stack.removeSubNbt("summonedTool"));
 	}
 
 	@Override
 	public void remove(RemovalReason removalReason) {
-		if (miningAt != null) {
+		if (!world.isClient) {
 			// Clear block breaking progress when removed
-			world.setBlockBreakingInfo(getId(), miningAt, -1);
+			for (BlockBreakSlot slot : miningSlots) {
+				if (!slot.isEmpty()) resetBlockBreakProgress(slot);
+			}
+			breakProgress.send(this);
 		}
 		if (!world.isClient && removalReason.shouldDestroy()) {
 			dropItems();
@@ -312,22 +740,49 @@ public abstract class SpiritToolEntity extends Entity {
 		}
 
 		super.remove(removalReason);
+		SpiritToolIndex.remove(this);
+		unwatchSections();
+	}
+
+	/**
+	 * Never loads the chunk, unlike looking up a block state in it
+	 */
+	protected boolean isChunkLoaded(long chunkPos) {
+		return world.getChunkManager().isChunkLoaded(ChunkPos.getPackedX(chunkPos), ChunkPos.getPackedZ(chunkPos));
 	}
 
-	protected boolean isPosOfMineMaterial(BlockPos pos) {
-		return mineMaterial.equals(world.getBlockState(pos).getBlock());
+	protected MaterialBucket getBucket(Block material) {
+		return buckets.computeIfAbsent(material, MaterialBucket::new);
+	}
+
+	protected boolean hasScheduledBlocks() {
+		for (MaterialBucket bucket : buckets.values()) {
+			if (!bucket.getSchedule().isEmpty()) return true;
+		}
+		return false;
 	}
 
 	/**
+	 * Takes the next block from the first bucket that has one in a loaded chunk
+	 *
 	 * @return whether a block was found
 	 */
-	protected boolean findNextMiningBlock() {
-		Optional<BlockPos> candidate = scheduledMiningPositions.stream()
-				.sorted((a, b) -> (int) Math.signum(squaredDistanceTo(Vec3d.of(a)) - squaredDistanceTo(Vec3d.of(b))))
-				.filter(this::isPosOfMineMaterial).findFirst();
-		if (candidate.isEmpty()) return false;
-		miningAt = candidate.get();
-		return true;
+	protected boolean findNextMiningBlock(BlockBreakSlot slot) {
+		for (MaterialBucket bucket : buckets.values()) {
+			MiningSchedule schedule = bucket.getSchedule();
+			if (schedule.isEmpty()) continue;
+			// Positions whose block changed while watched were already dropped, the rest is checked by the slot
+			long candidate = schedule.pollNearest(getX(), getY(), getZ(), this::isChunkLoaded, pos -> true);
+			if (candidate == MiningQueue.NONE) continue;
+			slot.start(BlockPos.fromLong(candidate), bucket, 0);
+			return true;
+		}
+		return false;
+	}
+
+	protected void startMiningSlot(int index, BlockPos pos, MaterialBucket bucket, int ticks) {
+		while (miningSlots.size() <= index) addMiningSlot();
+		miningSlots.get(index).start(pos, bucket, ticks);
 	}
 
 	@Override
@@ -339,20 +794,55 @@ public abstract class SpiritToolEntity extends Entity {
 		if (nbt.containsUuid("owner")) setOwnerUUID(nbt.getUuid("owner"));
 		if (nbt.contains("toolAge")) toolAge = nbt.getInt("toolAge");
 
-		if (nbt.contains("inventory")) inventory.addAll(
-				nbt.getList("inventory", NbtCompound.COMPOUND_TYPE).stream().map(NbtCompound.class::cast)
-						.map(ItemStack::fromNbt).toList());
+		if (nbt.contains("inventory")) inventory.readNbt(nbt.getList("inventory", NbtElement.COMPOUND_TYPE));
 
 		if (nbt.contains("xpAmount")) xpAmount = nbt.getInt("xpAmount");
+		returning = nbt.getBoolean("returning");
+
+		List<MaterialBucket> bucketOrder = new ArrayList<>();
+		if (nbt.contains("miningBuckets", NbtElement.LIST_TYPE)) {
+			NbtList bucketList = nbt.getList("miningBuckets", NbtElement.COMPOUND_TYPE);
+			for (int i = 0; i < bucketList.size(); i++) {
+				NbtCompound bucketNbt = bucketList.getCompound(i);
+				MaterialBucket bucket = getBucket(Registries.BLOCK.get(new Identifier(bucketNbt.getString("material"))));
+				bucket.getSchedule().readNbt(bucketNbt, "positions");
+				bucketOrder.add(bucket);
+			}
+		} else if (nbt.contains("miningMaterial")) {
+			// Saves from before material buckets have a single material
+			MaterialBucket bucket = getBucket(Registries.BLOCK.get(new Identifier(nbt.getString("miningMaterial"))));
+			bucket.getSchedule().readNbt(nbt, "miningPositions");
+			bucketOrder.add(bucket);
+		}
 
-		if (nbt.contains("miningPositions")) scheduledMiningPositions.addAll(
-				nbt.getList("miningPositions", NbtElement.COMPOUND_TYPE).stream().map(NbtCompound.class::cast)
-						.map(NbtHelper::toBlockPos).toList());
+		if (!bucketOrder.isEmpty() && nbt.contains("miningSlots", NbtElement.LONG_ARRAY_TYPE)) {
+			long[] positions = nbt.getLongArray("miningSlots");
+			int[] progress = nbt.getIntArray("miningSlotProgress");
+			int[] slotBuckets = nbt.getIntArray("miningSlotBuckets");
+			for (int i = 0; i < positions.length; i++) {
+				int bucket = i < slotBuckets.length && slotBuckets[i] < bucketOrder.size() ? slotBuckets[i] : 0;
+				startMiningSlot(i, BlockPos.fromLong(positions[i]), bucketOrder.get(bucket),
+						i < progress.length ? progress[i] : 0);
+			}
+		} else if (!bucketOrder.isEmpty() && nbt.contains("miningAt")) {
+			// Saves from before parallel mining only have a single position being mined
+			startMiningSlot(0, NbtHelper.toBlockPos(nbt.getCompound("miningAt")), bucketOrder.get(0),
+					nbt.getInt("miningProgress"));
+			// They also keep that position in the schedule
+			bucketOrder.get(0).getSchedule().remove(miningSlots.get(0).pos.asLong());
+		}
+		for (BlockBreakSlot slot : miningSlots) {
+			if (slot.isEmpty()) continue;
+			slot.bucket.getSchedule().addInProgress();
+			watchSectionOf(slot.pos.asLong());
+		}
+		for (MaterialBucket bucket : buckets.values()) {
+			for (long pos : bucket.getSchedule().toLongArray()) watchSectionOf(pos);
+		}
 
-		if (nbt.contains("miningMaterial"))
-			mineMaterial = Registries.BLOCK.get(new Identifier(nbt.getString("miningMaterial")));
-		if (nbt.contains("miningProgress")) miningTicks = nbt.getInt("miningProgress");
-		if (nbt.contains("miningAt")) miningAt = NbtHelper.toBlockPos(nbt.getCompound("miningAt"));
+		if (nbt.containsUuid("leader")) leaderUuid = nbt.getUuid("leader");
+		NbtList workerList = nbt.getList("swarmWorkers", NbtElement.INT_ARRAY_TYPE);
+		for (int i = 0; i < workerList.size(); i++) workerUuids.add(NbtHelper.toUuid(workerList.get(i)));
 
 		if (nbt.contains("itemStack")) setSummonStack(ItemStack.fromNbt(nbt.getCompound("itemStack")));
 	}
@@ -362,18 +852,44 @@ public abstract class SpiritToolEntity extends Entity {
 		nbt.putUuid("owner", getOwnerUUID());
 		nbt.putInt("toolAge", toolAge);
 
-		nbt.put("inventory", inventory.stream().map(stack -> stack.writeNbt(new NbtCompound()))
-				.collect(Collectors.toCollection(NbtList::new)));
+		nbt.put("inventory", inventory.writeNbt());
 
 		nbt.putInt("xpAmount", xpAmount);
-
-		nbt.put("miningPositions", scheduledMiningPositions.stream().map(NbtHelper::fromBlockPos)
-				.collect(Collectors.toCollection(NbtList::new)));
-
-
-		nbt.putString("miningMaterial", Registries.BLOCK.getId(mineMaterial).toString());
-		nbt.putInt("miningProgress", miningTicks);
-		if (miningAt != null) nbt.put("miningAt", NbtHelper.fromBlockPos(miningAt));
+		if (returning) nbt.putBoolean("returning", true);
+
+		NbtList bucketList = new NbtList();
+		List<MaterialBucket> bucketOrder = new ArrayList<>(buckets.values());
+		int scheduledBlocks = 0;
+		for (MaterialBucket bucket : bucketOrder) {
+			NbtCompound bucketNbt = new NbtCompound();
+			bucketNbt.putString("material", Registries.BLOCK.getId(bucket.getMaterial()).toString());
+			bucket.getSchedule().writeNbt(bucketNbt, "positions");
+			bucketList.add(bucketNbt);
+			scheduledBlocks += bucket.getSchedule().size();
+		}
+		nbt.put("miningBuckets", bucketList);
+
+		LongArrayList slotPositions = new LongArrayList();
+		IntArrayList slotProgress = new IntArrayList();
+		IntArrayList slotBuckets = new IntArrayList();
+		for (BlockBreakSlot slot : miningSlots) {
+			if (slot.isEmpty()) continue;
+			slotPositions.add(slot.pos.asLong());
+			slotProgress.add(slot.ticks);
+			slotBuckets.add(bucketOrder.indexOf(slot.bucket));
+		}
+		nbt.putLongArray("miningSlots", slotPositions.toLongArray());
+		nbt.putIntArray("miningSlotProgress", slotProgress.toIntArray());
+		nbt.putIntArray("miningSlotBuckets", slotBuckets.toIntArray());
+		SpiritToolsMetrics.recordNbtSave((scheduledBlocks + slotPositions.size()) * Long.BYTES
+				+ (slotProgress.size() + slotBuckets.size()) * Integer.BYTES);
+
+		if (leaderUuid != null) nbt.putUuid("leader", leaderUuid);
+		if (!workerUuids.isEmpty()) {
+			NbtList workerList = new NbtList();
+			for (UUID workerUuid : workerUuids) workerList.add(NbtHelper.fromUuid(workerUuid));
+			nbt.put("swarmWorkers", workerList);
+		}
 
 		if (!getSummonStack().isEmpty()) nbt.put("itemStack", getSummonStack().getNbt());
 	}
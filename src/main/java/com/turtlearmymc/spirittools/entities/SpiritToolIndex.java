@@ -0,0 +1,48 @@
+package com.turtlearmymc.spirittools.entities;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.world.World;
+
+import java.util.*;
+
+/**
+ * Index of the spirit tool entities loaded in each world by their UUID. Kept up to date through the entity load and
+ * unload events as well as {@link SpiritToolEntity#remove}.
+ */
+public final class SpiritToolIndex {
+	// The integrated server and the client access this from different threads, each only with its own worlds
+	private static final Map<World, Map<UUID, SpiritToolEntity>> TOOLS_BY_WORLD =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	private SpiritToolIndex() {
+	}
+
+	public static void onEntityLoad(Entity entity, World world) {
+		if (entity instanceof SpiritToolEntity tool) add(tool);
+	}
+
+	public static void onEntityUnload(Entity entity, World world) {
+		if (entity instanceof SpiritToolEntity tool) remove(tool);
+	}
+
+	public static void add(SpiritToolEntity tool) {
+		TOOLS_BY_WORLD.computeIfAbsent(tool.world, world -> new HashMap<>()).put(tool.getUuid(), tool);
+	}
+
+	public static void remove(SpiritToolEntity tool) {
+		Map<UUID, SpiritToolEntity> tools = TOOLS_BY_WORLD.get(tool.world);
+		if (tools != null) tools.remove(tool.getUuid(), tool);
+	}
+
+	public static SpiritToolEntity get(World world, UUID toolUuid) {
+		Map<UUID, SpiritToolEntity> tools = TOOLS_BY_WORLD.get(world);
+		if (tools == null) return null;
+		SpiritToolEntity tool = tools.get(toolUuid);
+		return tool != null && !tool.isRemoved() ? tool : null;
+	}
+
+	public static Collection<SpiritToolEntity> getLoaded(World world) {
+		Map<UUID, SpiritToolEntity> tools = TOOLS_BY_WORLD.get(world);
+		return tools != null ? Collections.unmodifiableCollection(tools.values()) : Collections.emptyList();
+	}
+}
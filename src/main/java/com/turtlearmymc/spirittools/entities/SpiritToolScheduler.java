@@ -0,0 +1,77 @@
+package com.turtlearmymc.spirittools.entities;
+
+import com.turtlearmymc.spirittools.SpiritTools;
+import com.turtlearmymc.spirittools.metrics.SchedulerTickEvent;
+import com.turtlearmymc.spirittools.metrics.SpiritToolsMetrics;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
+
+import java.util.*;
+
+/**
+ * Runs the server ticks of all spirit tools at the end of the server tick within the time budget set by the
+ * {@link SpiritTools#TICK_BUDGET_MICROS} game rule. Owners take turns, so tools that did not fit into a tick are run
+ * first in the next one before any owner gets another turn. A tool that has not run yet does not age.
+ */
+public final class SpiritToolScheduler {
+	private static final Map<UUID, ArrayDeque<SpiritToolEntity>> PENDING_BY_OWNER = new HashMap<>();
+	private static final ArrayDeque<UUID> OWNER_TURNS = new ArrayDeque<>();
+	private static final Set<SpiritToolEntity> PENDING = new ReferenceOpenHashSet<>();
+
+	private SpiritToolScheduler() {
+	}
+
+	/**
+	 * Queues a tool to run its server tick, unless it is still waiting from a previous tick
+	 */
+	public static void schedule(SpiritToolEntity tool) {
+		if (!PENDING.add(tool)) return;
+		UUID owner = tool.getOwnerUUID() != null ? tool.getOwnerUUID() : Util.NIL_UUID;
+		ArrayDeque<SpiritToolEntity> tools = PENDING_BY_OWNER.get(owner);
+		if (tools == null) {
+			tools = new ArrayDeque<>();
+			PENDING_BY_OWNER.put(owner, tools);
+			OWNER_TURNS.addLast(owner);
+		}
+		tools.addLast(tool);
+	}
+
+	public static void onEndTick(MinecraftServer server) {
+		if (OWNER_TURNS.isEmpty()) return;
+
+		int budgetMicros = server.getGameRules().getInt(SpiritTools.TICK_BUDGET_MICROS);
+		SchedulerTickEvent event = SpiritToolsMetrics.beginSchedulerTick();
+		long start = System.nanoTime();
+		long deadline = budgetMicros > 0 ? start + budgetMicros * 1000L : Long.MAX_VALUE;
+		long blocksMinedBefore = SpiritToolsMetrics.getBlocksMined();
+		long now = start;
+		int toolsRun = 0;
+		// At least one tool is run every tick so that none can be stuck forever
+		do {
+			UUID owner = OWNER_TURNS.pollFirst();
+			ArrayDeque<SpiritToolEntity> tools = PENDING_BY_OWNER.get(owner);
+			SpiritToolEntity tool = tools.pollFirst();
+			if (tools.isEmpty()) {
+				PENDING_BY_OWNER.remove(owner);
+			} else {
+				OWNER_TURNS.addLast(owner);
+			}
+
+			PENDING.remove(tool);
+			if (tool.isRemoved()) continue;
+			tool.serverTick();
+			long toolStart = now;
+			now = System.nanoTime();
+			SpiritToolsMetrics.recordToolTick(tool.getOwnerMetrics(), now - toolStart);
+			++toolsRun;
+		} while (!OWNER_TURNS.isEmpty() && now < deadline);
+		SpiritToolsMetrics.recordSchedulerTick(event, now - start, toolsRun, PENDING.size(), blocksMinedBefore);
+	}
+
+	public static void clear() {
+		PENDING_BY_OWNER.clear();
+		OWNER_TURNS.clear();
+		PENDING.clear();
+	}
+}
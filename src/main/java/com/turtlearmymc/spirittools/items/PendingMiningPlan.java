@@ -0,0 +1,61 @@
+package com.turtlearmymc.spirittools.items;
+
+import com.turtlearmymc.spirittools.entities.SpiritToolEntity;
+import com.turtlearmymc.spirittools.mining.VeinDiscovery;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The last plan started for a player. Swings that come while its search still runs wait for it, since only then it is
+ * known whether their blocks are part of the same vein.
+ */
+public class PendingMiningPlan {
+	// Set for plans the tool searches itself over several ticks
+	protected final SpiritToolEntity discoveringTool;
+	protected final VeinDiscovery discovery;
+	// Set while the vein is searched off-thread
+	protected boolean searchingOffThread;
+	protected final Deque<QueuedSwing> queuedSwings = new ArrayDeque<>();
+
+	/**
+	 * Creates a plan that is searched off-thread until {@link #finishOffThreadSearch} is called
+	 */
+	public PendingMiningPlan() {
+		discoveringTool = null;
+		discovery = null;
+		searchingOffThread = true;
+	}
+
+	public PendingMiningPlan(SpiritToolEntity discoveringTool, VeinDiscovery discovery) {
+		this.discoveringTool = discoveringTool;
+		this.discovery = discovery;
+	}
+
+	public boolean isSearching() {
+		if (discovery != null) return !discovery.isDone() && !discoveringTool.isRemoved();
+		return searchingOffThread;
+	}
+
+	public void finishOffThreadSearch() {
+		searchingOffThread = false;
+	}
+
+	public void queue(ItemStack stack, World world, BlockPos hitPos, Direction hitSide) {
+		for (QueuedSwing swing : queuedSwings) {
+			if (swing.world() == world && swing.hitPos().equals(hitPos)) return;
+		}
+		queuedSwings.add(new QueuedSwing(stack, world, hitPos.toImmutable(), hitSide));
+	}
+
+	public Deque<QueuedSwing> getQueuedSwings() {
+		return queuedSwings;
+	}
+
+	public record QueuedSwing(ItemStack stack, World world, BlockPos hitPos, Direction hitSide) {
+	}
+}
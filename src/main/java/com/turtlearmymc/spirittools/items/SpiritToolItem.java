@@ -1,55 +1,58 @@
 package com.turtlearmymc.spirittools.items;
 
+import com.turtlearmymc.spirittools.SpiritTools;
 import com.turtlearmymc.spirittools.entities.SpiritToolEntity;
+import com.turtlearmymc.spirittools.entities.SpiritToolIndex;
+import com.turtlearmymc.spirittools.metrics.SpiritToolsMetrics;
+import com.turtlearmymc.spirittools.metrics.VeinSearchEvent;
+import com.turtlearmymc.spirittools.mining.BlockSnapshot;
+import com.turtlearmymc.spirittools.mining.SectionCachedBlockReader;
+import com.turtlearmymc.spirittools.mining.VeinSearch;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
-import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
-import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.MiningToolItem;
 import net.minecraft.nbt.NbtHelper;
 import net.minecraft.registry.tag.TagKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundEvents;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
 import net.minecraft.util.TypedActionResult;
+import net.minecraft.util.Util;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
-import java.util.HashSet;
+import org.apache.logging.log4j.Level;
+
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> extends MiningToolItem {
-	protected static final double SEARCH_BLOCK_RANGE = 5;
+	// Larger ranges are searched over several ticks, so that a single swing cannot stall the server
+	protected static final double ONE_SHOT_SEARCH_RANGE = 5;
+	// Last plan started for each player, only used on the server thread
+	private static final Map<PlayerEntity, PendingMiningPlan> PENDING_PLANS = new WeakHashMap<>();
 
 	public SpiritToolItem(float attackDamage, float attackSpeed, TagKey<Block> effectiveBlocks, Settings settings) {
 		super(attackDamage, attackSpeed, SpiritToolMaterial.SPIRIT_TOOL_MATERIAL, effectiveBlocks, settings);
 	}
 
-	public static float summonedPredicateProvider(
-			ItemStack itemStack, ClientWorld clientWorld, LivingEntity entity, int seed
-	) {
-		Entity holder = entity != null ? entity : itemStack.getHolder();
-		if (holder == null) return 0;
-
-		if (clientWorld == null) {
-			if (holder.world instanceof ClientWorld world) {
-				clientWorld = world;
-			} else {
-				return 0;
-			}
-		}
-
-		return ((SpiritToolItem<?>) itemStack.getItem()).isEntitySummoned(itemStack, clientWorld, holder) ? 1 : 0;
-	}
-
 	public static ActionResult attackBlockHandler(
 			PlayerEntity player, World world, Hand hand, BlockPos hitPos, Direction hitSide
 	) {
@@ -59,6 +62,17 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		return ActionResult.PASS;
 	}
 
+	/**
+	 * Called for every swing packet, including the ones sent while the attack key is held down after the block was
+	 * first hit, to keep the summoned tool from despawning
+	 */
+	public static void onContinuedSwing(ServerPlayerEntity player, Hand hand) {
+		ItemStack stack = player.getStackInHand(hand);
+		if (hand == Hand.MAIN_HAND && stack.getItem() instanceof SpiritToolItem<?> spiritToolItem) {
+			spiritToolItem.keepSummonedToolAlive(stack, player);
+		}
+	}
+
 	// Spirit tools should not be able to break blocks of their tool type
 	@Override
 	public boolean canMine(BlockState state, World world, BlockPos pos, PlayerEntity miner) {
@@ -83,14 +97,15 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		return findSummonedEntity(itemStack, world, holder).isPresent();
 	}
 
+	@SuppressWarnings("unchecked")
 	protected Optional<ToolEntityType> findSummonedEntity(ItemStack stack, World world, Entity holder) {
-		if (!stack.hasNbt() || !stack.getNbt().contains("summonedTool")) return Optional.empty();
+		if (!stack.hasNbt() || !stack.getNbt().containsUuid("summonedTool")) return Optional.empty();
 
-		UUID toolUuid = stack.getNbt().getUuid("summonedTool");
-		double expandBy = Math.sqrt(Math.pow(SpiritToolEntity.SUMMON_RANGE, 2) * 2);
-		return world.getEntitiesByType(getToolEntityType(), holder.getBoundingBox().expand(expandBy),
-				spiritTool -> spiritTool.getUuid().equals(toolUuid)
-		).stream().findAny();
+		// Only the lookups of swings and recalls are counted, not the ones of the client or of internal traversal
+		if (!world.isClient()) SpiritToolsMetrics.recordToolLookup();
+		SpiritToolEntity spiritTool = SpiritToolIndex.get(world, stack.getNbt().getUuid("summonedTool"));
+		if (spiritTool == null || spiritTool.getType() != getToolEntityType()) return Optional.empty();
+		return Optional.of((ToolEntityType) spiritTool);
 	}
 
 	@Override
@@ -104,13 +119,86 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		return recalled ? TypedActionResult.success(stack) : TypedActionResult.fail(stack);
 	}
 
-	// FIXME: Only runs on first tick of swing. Continuing to swing does not reset despawn timer
 	public void onSpiritToolSwing(
 			ItemStack stack, World world, PlayerEntity holder, BlockPos hitPos, Direction hitSide
 	) {
-		// FIXME: This should be done after tool is found/spawned
-		Set<BlockPos> miningPositions = findBlocksToMine(world, hitPos);
-		if (miningPositions == null) return;
+		BlockState state = world.getBlockState(hitPos);
+		if (!spiritToolSuitableFor(state)) return;
+
+		ServerWorld serverWorld = (ServerWorld) world;
+		Block block = state.getBlock();
+		// Hitting a block the tool already has planned reuses that plan
+		Optional<ToolEntityType> foundEntity = findSummonedEntity(stack, world, holder);
+		if (foundEntity.isPresent() && foundEntity.get().isScheduledOrDiscovered(block, hitPos.asLong())) {
+			extendToolTime(foundEntity.get(), stack, holder);
+			return;
+		}
+		// Swings while a search runs are looked at again once it is done, when the blocks of its vein are known
+		PendingMiningPlan pendingPlan = PENDING_PLANS.get(holder);
+		if (pendingPlan != null && pendingPlan.isSearching()) {
+			pendingPlan.queue(stack, world, hitPos, hitSide);
+			return;
+		}
+
+		double range = world.getGameRules().getInt(SpiritTools.SEARCH_RANGE);
+		if (range > ONE_SHOT_SEARCH_RANGE) {
+			PENDING_PLANS.put(holder, startDiscovery(stack, world, holder, hitPos, hitSide, block, range));
+			return;
+		}
+		PendingMiningPlan plan = new PendingMiningPlan();
+		PENDING_PLANS.put(holder, plan);
+		planBlocksToMine(serverWorld, hitPos, block, range)
+				.thenAcceptAsync(miningPositions -> scheduleMiningPlan(stack, serverWorld, holder, hitPos, hitSide,
+						block, miningPositions
+				), serverWorld.getServer())
+				.exceptionally(e -> {
+					SpiritTools.log(Level.ERROR, "Failed to plan spirit tool mining: " + e);
+					return null;
+				})
+				.thenRunAsync(plan::finishOffThreadSearch, serverWorld.getServer());
+	}
+
+	/**
+	 * Replays the swings that waited for a search that is done now, which then either reuse its blocks or start a plan
+	 * of their own
+	 */
+	public static void onEndTick(MinecraftServer server) {
+		if (PENDING_PLANS.isEmpty()) return;
+		Map<PlayerEntity, PendingMiningPlan> finishedPlans = new HashMap<>();
+		PENDING_PLANS.entrySet().removeIf(entry -> {
+			if (entry.getValue().isSearching()) return false;
+			finishedPlans.put(entry.getKey(), entry.getValue());
+			return true;
+		});
+
+		finishedPlans.forEach((holder, plan) -> {
+			for (PendingMiningPlan.QueuedSwing swing : plan.getQueuedSwings()) {
+				if (holder.isRemoved() || holder.world != swing.world()) return;
+				if (swing.stack().isEmpty() || !(swing.stack().getItem() instanceof SpiritToolItem<?> item)) continue;
+				item.onSpiritToolSwing(swing.stack(), swing.world(), holder, swing.hitPos(), swing.hitSide());
+			}
+		});
+	}
+
+	public static void clearPendingPlans() {
+		PENDING_PLANS.clear();
+	}
+
+	protected void scheduleMiningPlan(
+			ItemStack stack, World world, PlayerEntity holder, BlockPos hitPos, Direction hitSide, Block block,
+			LongSet miningPositions
+	) {
+		if (holder.isRemoved() || stack.isEmpty()) return;
+		SpiritToolsMetrics.recordVeinSearchScheduled(SpiritToolsMetrics.forOwner(holder.getUuid()));
+
+		// The world may have changed while the plan was computed off-thread
+		SectionCachedBlockReader reader = new SectionCachedBlockReader(world);
+		for (LongIterator it = miningPositions.iterator(); it.hasNext(); ) {
+			long pos = it.nextLong();
+			if (!reader.getBlockState(BlockPos.unpackLongX(pos), BlockPos.unpackLongY(pos), BlockPos.unpackLongZ(pos))
+					.isOf(block)) it.remove();
+		}
+		if (!miningPositions.contains(hitPos.asLong())) return;
 
 		BlockState state = world.getBlockState(hitPos);
 
@@ -119,20 +207,69 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		Optional<ToolEntityType> foundEntity = findSummonedEntity(stack, world, holder);
 		if (foundEntity.isPresent()) {
 			toolEntity = foundEntity.get();
-			// TODO: Allow multiple materials to be scheduled simultaneously
-			if (toolEntity.getMineMaterial() != state.getBlock()) return;
 			previousEstimatedBreakableBlocks = toolEntity.estimateBreakableScheduledBlocks(hitPos);
 			toolEntity.resetDespawnTimer();
 		} else {
-			Vec3d spawnAt =
-					Vec3d.of(state.getCollisionShape(world, hitPos).isEmpty() ? hitPos : hitPos.offset(hitSide));
-			toolEntity = spawnToolEntity(world, spawnAt, hitPos, holder, stack);
+			toolEntity = spawnToolEntity(world, hitPos, hitSide, holder, stack);
 		}
-		Set<BlockPos> scheduledPositions = toolEntity.scheduleToMine(state.getBlock(), miningPositions);
+		toolEntity.scheduleToMine(state.getBlock(), miningPositions);
 		int damageAmount = toolEntity.estimateBreakableScheduledBlocks(hitPos) - previousEstimatedBreakableBlocks;
 		stack.damage(damageAmount, holder, p -> p.sendToolBreakStatus(Hand.MAIN_HAND));
 	}
 
+	/**
+	 * Lets the tool search the vein itself over the next ticks, paying for the blocks as it finds them
+	 */
+	protected PendingMiningPlan startDiscovery(
+			ItemStack stack, World world, PlayerEntity holder, BlockPos hitPos, Direction hitSide, Block block,
+			double range
+	) {
+		SpiritToolsMetrics.recordVeinSearchScheduled(SpiritToolsMetrics.forOwner(holder.getUuid()));
+
+		ToolEntityType toolEntity;
+		Optional<ToolEntityType> foundEntity = findSummonedEntity(stack, world, holder);
+		if (foundEntity.isPresent()) {
+			toolEntity = foundEntity.get();
+			extendToolTime(toolEntity, stack, holder);
+		} else {
+			toolEntity = spawnToolEntity(world, hitPos, hitSide, holder, stack);
+		}
+		return new PendingMiningPlan(toolEntity, toolEntity.startDiscovery(block, hitPos, range));
+	}
+
+	/**
+	 * Extends the time of the summoned tool while the holder keeps swinging at a block the tool could mine
+	 */
+	protected void keepSummonedToolAlive(ItemStack stack, ServerPlayerEntity holder) {
+		// Swing packets are also sent for swings at the air and at entities
+		HitResult hit = holder.raycast(Math.sqrt(ServerPlayNetworkHandler.MAX_BREAK_SQUARED_DISTANCE), 0, false);
+		if (hit.getType() != HitResult.Type.BLOCK) return;
+		if (!spiritToolSuitableFor(holder.world.getBlockState(((BlockHitResult) hit).getBlockPos()))) return;
+
+		findSummonedEntity(stack, holder.world, holder)
+				.ifPresent(toolEntity -> extendToolTime(toolEntity, stack, holder));
+	}
+
+	/**
+	 * Resets the despawn timer of a summoned tool and damages the stack for the blocks it can break in the extra time,
+	 * the same way scheduling a new plan does
+	 */
+	protected void extendToolTime(ToolEntityType toolEntity, ItemStack stack, PlayerEntity holder) {
+		int previousEstimatedBreakableBlocks = toolEntity.estimateBreakableScheduledBlocks(toolEntity.getBlockPos());
+		toolEntity.resetDespawnTimer();
+		int damageAmount =
+				toolEntity.estimateBreakableScheduledBlocks(toolEntity.getBlockPos()) - previousEstimatedBreakableBlocks;
+		if (damageAmount > 0) stack.damage(damageAmount, holder, p -> p.sendToolBreakStatus(Hand.MAIN_HAND));
+	}
+
+	protected ToolEntityType spawnToolEntity(
+			World world, BlockPos hitPos, Direction hitSide, PlayerEntity owner, ItemStack stack
+	) {
+		BlockState state = world.getBlockState(hitPos);
+		Vec3d spawnAt = Vec3d.of(state.getCollisionShape(world, hitPos).isEmpty() ? hitPos : hitPos.offset(hitSide));
+		return spawnToolEntity(world, spawnAt, hitPos, owner, stack);
+	}
+
 	protected ToolEntityType spawnToolEntity(
 			World world, Vec3d spawnAt, BlockPos startMiningAt, PlayerEntity owner, ItemStack stack
 	) {
@@ -146,6 +283,7 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		toolEntity.playSound(SoundEvents.ENTITY_ALLAY_ITEM_GIVEN, 2, 1);
 
 		stack.setSubNbt("summonedTool", NbtHelper.fromUuid(toolEntity.getUuid()));
+		SpiritToolsMetrics.recordToolSummoned(toolEntity.getOwnerMetrics());
 
 		return toolEntity;
 	}
@@ -164,27 +302,17 @@ public abstract class SpiritToolItem<ToolEntityType extends SpiritToolEntity> ex
 		return super.isSuitableFor(state);
 	}
 
-	protected Set<BlockPos> findBlocksToMine(World world, BlockPos searchFrom) {
-		BlockState state = world.getBlockState(searchFrom);
-		if (!spiritToolSuitableFor(state)) return null;
-
-		Set<BlockPos> positions = new HashSet<>();
-		fillMiningPositions(positions, world, state.getBlock(), searchFrom, searchFrom);
-		return positions;
-	}
-
-	protected void fillMiningPositions(
-			Set<BlockPos> positions, World world, Block block, BlockPos center, BlockPos pos
-	) {
-		if (positions.contains(pos)) return;
-		if (!center.isWithinDistance(pos, SEARCH_BLOCK_RANGE)) return;
-		if (!world.getBlockState(pos).getBlock().equals(block)) return;
-		positions.add(pos);
-		fillMiningPositions(positions, world, block, center, pos.up());
-		fillMiningPositions(positions, world, block, center, pos.down());
-		fillMiningPositions(positions, world, block, center, pos.north());
-		fillMiningPositions(positions, world, block, center, pos.south());
-		fillMiningPositions(positions, world, block, center, pos.east());
-		fillMiningPositions(positions, world, block, center, pos.west());
+	/**
+	 * Copies the sections around the search position and searches them on a worker thread
+	 */
+	protected CompletableFuture<LongSet> planBlocksToMine(World world, BlockPos searchFrom, Block block, double range) {
+		BlockSnapshot snapshot = BlockSnapshot.capture(world, searchFrom, (int) Math.ceil(range));
+		return CompletableFuture.supplyAsync(() -> {
+			VeinSearchEvent event = SpiritToolsMetrics.beginVeinSearch();
+			long start = System.nanoTime();
+			LongSet found = VeinSearch.findConnected(snapshot.matcherFor(block), searchFrom, range);
+			SpiritToolsMetrics.recordVeinSearch(event, System.nanoTime() - start, found.size(), range);
+			return found;
+		}, Util.getMainWorkerExecutor());
 	}
 }
\ No newline at end of file
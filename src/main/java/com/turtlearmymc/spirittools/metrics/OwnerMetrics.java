@@ -0,0 +1,32 @@
+package com.turtlearmymc.spirittools.metrics;
+
+/**
+ * Totals for the tools of one owner. Only updated from the server thread.
+ */
+public class OwnerMetrics {
+	protected long toolsSummoned;
+	protected long blocksMined;
+	protected long veinSearches;
+	protected long toolTicks;
+	protected long toolTickNanos;
+
+	public long getToolsSummoned() {
+		return toolsSummoned;
+	}
+
+	public long getBlocksMined() {
+		return blocksMined;
+	}
+
+	public long getVeinSearches() {
+		return veinSearches;
+	}
+
+	public long getToolTicks() {
+		return toolTicks;
+	}
+
+	public long getToolTickNanos() {
+		return toolTickNanos;
+	}
+}
@@ -0,0 +1,18 @@
+package com.turtlearmymc.spirittools.metrics;
+
+import jdk.jfr.*;
+
+@Name("spirittools.SchedulerTick")
+@Label("Spirit Tool Scheduler Tick")
+@Category({"Minecraft", "Spirit Tools"})
+@StackTrace(false)
+public class SchedulerTickEvent extends Event {
+	@Label("Tools Run")
+	public int toolsRun;
+
+	@Label("Tools Deferred")
+	public int toolsDeferred;
+
+	@Label("Blocks Mined")
+	public long blocksMined;
+}
@@ -0,0 +1,208 @@
+package com.turtlearmymc.spirittools.metrics;
+
+import jdk.jfr.EventType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide counters and timers for spirit tools. Recording does not allocate; the JFR events are only created while
+ * a recording has them enabled. They are begun before the work they time, so they line up with server profiles.
+ */
+public final class SpiritToolsMetrics {
+	private static final EventType VEIN_SEARCH_EVENT = EventType.getEventType(VeinSearchEvent.class);
+	private static final EventType SCHEDULER_TICK_EVENT = EventType.getEventType(SchedulerTickEvent.class);
+
+	// Vein searches run on worker threads and lookups also happen on the client thread
+	private static final LongAdder VEIN_SEARCHES = new LongAdder();
+	private static final LongAdder VEIN_SEARCH_NANOS = new LongAdder();
+	private static final AtomicLong MAX_VEIN_SEARCH_NANOS = new AtomicLong();
+	private static final LongAdder TOOL_LOOKUPS = new LongAdder();
+
+	// Only updated from the server thread
+	private static long toolsSummoned;
+	private static long blocksMined;
+	private static long schedulerTicks;
+	private static long schedulerNanos;
+	private static long maxSchedulerNanos;
+	private static long deferredToolTicks;
+	private static long nbtSaves;
+	private static long nbtSaveBytes;
+	private static final Map<UUID, OwnerMetrics> OWNERS = new HashMap<>();
+
+	private SpiritToolsMetrics() {
+	}
+
+	public static OwnerMetrics forOwner(UUID owner) {
+		return OWNERS.computeIfAbsent(owner, uuid -> new OwnerMetrics());
+	}
+
+	public static Map<UUID, OwnerMetrics> getOwners() {
+		return Collections.unmodifiableMap(OWNERS);
+	}
+
+	public static void recordToolSummoned(OwnerMetrics owner) {
+		++toolsSummoned;
+		++owner.toolsSummoned;
+	}
+
+	public static void recordBlockMined(OwnerMetrics owner) {
+		++blocksMined;
+		++owner.blocksMined;
+	}
+
+	/**
+	 * @return the begun event, or null if no recording has it enabled
+	 */
+	public static VeinSearchEvent beginVeinSearch() {
+		if (!VEIN_SEARCH_EVENT.isEnabled()) return null;
+		VeinSearchEvent event = new VeinSearchEvent();
+		event.begin();
+		return event;
+	}
+
+	public static void recordVeinSearch(VeinSearchEvent event, long nanos, int foundBlocks, double range) {
+		VEIN_SEARCHES.increment();
+		recordVeinSearchTime(nanos);
+		commitVeinSearch(event, foundBlocks, range, false);
+	}
+
+	/**
+	 * Records the part of a vein search run within one tick. The search is only counted once it is done, the time
+	 * of every part is counted as it comes.
+	 */
+	public static void recordVeinSearchStep(
+			VeinSearchEvent event, long nanos, int foundBlocks, double range, boolean done
+	) {
+		if (done) VEIN_SEARCHES.increment();
+		recordVeinSearchTime(nanos);
+		commitVeinSearch(event, foundBlocks, range, true);
+	}
+
+	private static void recordVeinSearchTime(long nanos) {
+		VEIN_SEARCH_NANOS.add(nanos);
+		MAX_VEIN_SEARCH_NANOS.accumulateAndGet(nanos, Math::max);
+	}
+
+	private static void commitVeinSearch(VeinSearchEvent event, int foundBlocks, double range, boolean streamed) {
+		if (event == null) return;
+		event.foundBlocks = foundBlocks;
+		event.range = range;
+		event.streamed = streamed;
+		event.commit();
+	}
+
+	public static void recordVeinSearchScheduled(OwnerMetrics owner) {
+		++owner.veinSearches;
+	}
+
+	public static void recordToolTick(OwnerMetrics owner, long nanos) {
+		++owner.toolTicks;
+		owner.toolTickNanos += nanos;
+	}
+
+	/**
+	 * @return the begun event, or null if no recording has it enabled
+	 */
+	public static SchedulerTickEvent beginSchedulerTick() {
+		if (!SCHEDULER_TICK_EVENT.isEnabled()) return null;
+		SchedulerTickEvent event = new SchedulerTickEvent();
+		event.begin();
+		return event;
+	}
+
+	public static void recordSchedulerTick(
+			SchedulerTickEvent event, long nanos, int toolsRun, int toolsDeferred, long blocksMinedBefore
+	) {
+		++schedulerTicks;
+		schedulerNanos += nanos;
+		maxSchedulerNanos = Math.max(maxSchedulerNanos, nanos);
+		deferredToolTicks += toolsDeferred;
+		if (event != null) {
+			event.toolsRun = toolsRun;
+			event.toolsDeferred = toolsDeferred;
+			event.blocksMined = blocksMined - blocksMinedBefore;
+			event.commit();
+		}
+	}
+
+	public static void recordNbtSave(int bytes) {
+		++nbtSaves;
+		nbtSaveBytes += bytes;
+	}
+
+	public static void recordToolLookup() {
+		TOOL_LOOKUPS.increment();
+	}
+
+	/**
+	 * Starts over when the server stops, so that the integrated server does not carry numbers into the next world
+	 */
+	public static void reset() {
+		VEIN_SEARCHES.reset();
+		VEIN_SEARCH_NANOS.reset();
+		MAX_VEIN_SEARCH_NANOS.set(0);
+		TOOL_LOOKUPS.reset();
+		toolsSummoned = 0;
+		blocksMined = 0;
+		schedulerTicks = 0;
+		schedulerNanos = 0;
+		maxSchedulerNanos = 0;
+		deferredToolTicks = 0;
+		nbtSaves = 0;
+		nbtSaveBytes = 0;
+		OWNERS.clear();
+	}
+
+	public static long getToolsSummoned() {
+		return toolsSummoned;
+	}
+
+	public static long getBlocksMined() {
+		return blocksMined;
+	}
+
+	public static long getVeinSearches() {
+		return VEIN_SEARCHES.sum();
+	}
+
+	public static long getVeinSearchNanos() {
+		return VEIN_SEARCH_NANOS.sum();
+	}
+
+	public static long getMaxVeinSearchNanos() {
+		return MAX_VEIN_SEARCH_NANOS.get();
+	}
+
+	public static long getToolLookups() {
+		return TOOL_LOOKUPS.sum();
+	}
+
+	public static long getSchedulerTicks() {
+		return schedulerTicks;
+	}
+
+	public static long getSchedulerNanos() {
+		return schedulerNanos;
+	}
+
+	public static long getMaxSchedulerNanos() {
+		return maxSchedulerNanos;
+	}
+
+	public static long getDeferredToolTicks() {
+		return deferredToolTicks;
+	}
+
+	public static long getNbtSaves() {
+		return nbtSaves;
+	}
+
+	public static long getNbtSaveBytes() {
+		return nbtSaveBytes;
+	}
+}
@@ -0,0 +1,19 @@
+package com.turtlearmymc.spirittools.metrics;
+
+import jdk.jfr.*;
+
+@Name("spirittools.VeinSearch")
+@Label("Spirit Tool Vein Search")
+@Category({"Minecraft", "Spirit Tools"})
+@StackTrace(false)
+public class VeinSearchEvent extends Event {
+	@Label("Found Blocks")
+	public int foundBlocks;
+
+	@Label("Search Range")
+	public double range;
+
+	@Label("Streamed")
+	@Description("Only part of a search spread over several ticks")
+	public boolean streamed;
+}
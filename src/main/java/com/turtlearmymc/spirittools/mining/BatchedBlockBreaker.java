@@ -0,0 +1,93 @@
+package com.turtlearmymc.spirittools.mining;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.AbstractFireBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.WorldEvents;
+import net.minecraft.world.block.NeighborUpdater;
+import net.minecraft.world.event.GameEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Breaks a batch of blocks the same way as {@link net.minecraft.world.World#breakBlock} without drops, but removes
+ * all of them before running any neighbor or shape updates. Neighbors that are themselves part of the batch and were
+ * replaced by air are not updated.
+ */
+public class BatchedBlockBreaker {
+	// Flags and depth used for the updates World#breakBlock runs after replacing a block
+	private static final int UPDATE_FLAGS = Block.NOTIFY_LISTENERS;
+	private static final int UPDATE_DEPTH = 511;
+
+	protected final LongArrayList positions = new LongArrayList();
+	protected final List<BlockState> brokenStates = new ArrayList<>();
+	protected final List<BlockState> replacementStates = new ArrayList<>();
+	protected final BlockPos.Mutable pos = new BlockPos.Mutable();
+	protected final BlockPos.Mutable neighborPos = new BlockPos.Mutable();
+
+	public boolean isEmpty() {
+		return positions.isEmpty();
+	}
+
+	public void add(BlockPos pos) {
+		positions.add(pos.asLong());
+	}
+
+	public void breakAll(ServerWorld world, Entity breakingEntity) {
+		if (positions.isEmpty()) return;
+
+		LongOpenHashSet removedToAir = new LongOpenHashSet(positions.size());
+		for (int i = 0; i < positions.size(); i++) {
+			pos.set(positions.getLong(i));
+			BlockState state = world.getBlockState(pos);
+			if (state.isAir()) {
+				brokenStates.add(null);
+				replacementStates.add(null);
+				continue;
+			}
+
+			if (!(state.getBlock() instanceof AbstractFireBlock)) {
+				world.syncWorldEvent(WorldEvents.BLOCK_BROKEN, pos, Block.getRawIdFromState(state));
+			}
+			BlockState replacement = world.getFluidState(pos).getBlockState();
+			// Skip neighbor and shape updates for now, they are done for the whole batch below
+			if (!world.setBlockState(pos, replacement, UPDATE_FLAGS | Block.FORCE_STATE)) {
+				brokenStates.add(null);
+				replacementStates.add(null);
+				continue;
+			}
+			world.emitGameEvent(GameEvent.BLOCK_DESTROY, pos, GameEvent.Emitter.of(breakingEntity, state));
+			brokenStates.add(state);
+			replacementStates.add(replacement);
+			if (replacement.isAir()) removedToAir.add(positions.getLong(i));
+		}
+
+		for (int i = 0; i < positions.size(); i++) {
+			BlockState state = brokenStates.get(i);
+			if (state == null) continue;
+			BlockState replacement = replacementStates.get(i);
+			pos.set(positions.getLong(i));
+
+			// Same order as World#updateNeighborsAlways, which order-sensitive redstone depends on
+			for (Direction direction : NeighborUpdater.UPDATE_ORDER) {
+				neighborPos.set(pos, direction);
+				if (removedToAir.contains(neighborPos.asLong())) continue;
+				world.updateNeighbor(neighborPos, state.getBlock(), pos);
+			}
+			state.prepare(world, pos, UPDATE_FLAGS, UPDATE_DEPTH);
+			replacement.updateNeighbors(world, pos, UPDATE_FLAGS, UPDATE_DEPTH);
+			replacement.prepare(world, pos, UPDATE_FLAGS, UPDATE_DEPTH);
+		}
+
+		positions.clear();
+		brokenStates.clear();
+		replacementStates.clear();
+	}
+}
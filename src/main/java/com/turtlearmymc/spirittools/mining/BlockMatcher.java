@@ -0,0 +1,6 @@
+package com.turtlearmymc.spirittools.mining;
+
+@FunctionalInterface
+public interface BlockMatcher {
+	boolean matches(int x, int y, int z);
+}
@@ -0,0 +1,65 @@
+package com.turtlearmymc.spirittools.mining;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Read-only copy of the chunk sections around a position. Taken on the server thread and then safe to read from a
+ * single other thread.
+ */
+public class BlockSnapshot {
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+	protected final Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<>();
+
+	protected long cachedSectionPos = Long.MAX_VALUE;
+	protected PalettedContainer<BlockState> cachedSection;
+
+	/**
+	 * Copies every non-empty section with blocks within the given radius of the center. Chunks that are not loaded
+	 * are left out rather than loaded, so they read as air.
+	 */
+	public static BlockSnapshot capture(World world, BlockPos center, int radius) {
+		BlockSnapshot snapshot = new BlockSnapshot();
+		int minX = ChunkSectionPos.getSectionCoord(center.getX() - radius);
+		int maxX = ChunkSectionPos.getSectionCoord(center.getX() + radius);
+		int minY = Math.max(ChunkSectionPos.getSectionCoord(center.getY() - radius), world.getBottomSectionCoord());
+		int maxY = Math.min(ChunkSectionPos.getSectionCoord(center.getY() + radius), world.getTopSectionCoord() - 1);
+		int minZ = ChunkSectionPos.getSectionCoord(center.getZ() - radius);
+		int maxZ = ChunkSectionPos.getSectionCoord(center.getZ() + radius);
+
+		for (int x = minX; x <= maxX; x++) {
+			for (int z = minZ; z <= maxZ; z++) {
+				WorldChunk chunk = world.getChunkManager().getWorldChunk(x, z, false);
+				if (chunk == null) continue;
+				for (int y = minY; y <= maxY; y++) {
+					ChunkSection section = chunk.getSection(world.sectionCoordToIndex(y));
+					if (section.isEmpty()) continue;
+					snapshot.sections.put(ChunkSectionPos.asLong(x, y, z), section.getBlockStateContainer().copy());
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	public BlockState getBlockState(int x, int y, int z) {
+		long sectionPos = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+		if (sectionPos != cachedSectionPos) {
+			cachedSection = sections.get(sectionPos);
+			cachedSectionPos = sectionPos;
+		}
+		return cachedSection != null ? cachedSection.get(x & 15, y & 15, z & 15) : AIR;
+	}
+
+	public BlockMatcher matcherFor(Block block) {
+		return (x, y, z) -> getBlockState(x, y, z).isOf(block);
+	}
+}
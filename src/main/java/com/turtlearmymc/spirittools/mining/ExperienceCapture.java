@@ -0,0 +1,38 @@
+package com.turtlearmymc.spirittools.mining;
+
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Collects the experience a block would drop as orbs while a spirit tool breaks it, so that no orb entities have to
+ * be spawned and picked up again. Only used from the server thread.
+ */
+public final class ExperienceCapture {
+	private static ServerWorld capturingWorld;
+	private static int captured;
+
+	private ExperienceCapture() {
+	}
+
+	public static void begin(ServerWorld world) {
+		capturingWorld = world;
+		captured = 0;
+	}
+
+	/**
+	 * @return the experience captured since {@link #begin}
+	 */
+	public static int end() {
+		capturingWorld = null;
+		int amount = captured;
+		captured = 0;
+		return amount;
+	}
+
+	public static boolean isCapturing(ServerWorld world) {
+		return capturingWorld == world;
+	}
+
+	public static void capture(int amount) {
+		captured += amount;
+	}
+}
@@ -0,0 +1,129 @@
+package com.turtlearmymc.spirittools.mining;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Min-heap of packed block positions ordered by squared distance to an origin. When the origin moves the heap is
+ * re-keyed in linear time, otherwise adding and polling positions is logarithmic.
+ */
+public class MiningQueue {
+	/**
+	 * Returned when no valid position is left. Unpacks to a position outside the world border.
+	 */
+	public static final long NONE = Long.MAX_VALUE;
+
+	protected long[] positions = new long[16];
+	protected double[] distances = new double[16];
+	protected int size;
+
+	protected double originX;
+	protected double originY;
+	protected double originZ;
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return the queued positions in no particular order
+	 */
+	public long[] toLongArray() {
+		return Arrays.copyOf(positions, size);
+	}
+
+	public void add(long pos) {
+		if (size == positions.length) {
+			positions = Arrays.copyOf(positions, size * 2);
+			distances = Arrays.copyOf(distances, size * 2);
+		}
+		positions[size] = pos;
+		distances[size] = distanceTo(pos);
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes positions nearest to the given origin until one passes the validity check.
+	 *
+	 * @return the nearest valid position, or {@link #NONE} if the queue ran out
+	 */
+	public long pollNearest(double x, double y, double z, LongPredicate valid) {
+		moveOrigin(x, y, z);
+		while (size > 0) {
+			long pos = positions[0];
+			removeTop();
+			if (valid.test(pos)) return pos;
+		}
+		return NONE;
+	}
+
+	protected void moveOrigin(double x, double y, double z) {
+		if (x == originX && y == originY && z == originZ) return;
+		originX = x;
+		originY = y;
+		originZ = z;
+		for (int i = 0; i < size; i++) {
+			distances[i] = distanceTo(positions[i]);
+		}
+		for (int i = (size >>> 1) - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	protected double distanceTo(long pos) {
+		double dx = BlockPos.unpackLongX(pos) - originX;
+		double dy = BlockPos.unpackLongY(pos) - originY;
+		double dz = BlockPos.unpackLongZ(pos) - originZ;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	protected void removeTop() {
+		--size;
+		if (size > 0) {
+			positions[0] = positions[size];
+			distances[0] = distances[size];
+			siftDown(0);
+		}
+	}
+
+	protected void siftUp(int i) {
+		long pos = positions[i];
+		double distance = distances[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (distances[parent] <= distance) break;
+			positions[i] = positions[parent];
+			distances[i] = distances[parent];
+			i = parent;
+		}
+		positions[i] = pos;
+		distances[i] = distance;
+	}
+
+	protected void siftDown(int i) {
+		long pos = positions[i];
+		double distance = distances[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < size && distances[right] < distances[child]) child = right;
+			if (distance <= distances[child]) break;
+			positions[i] = positions[child];
+			distances[i] = distances[child];
+			i = child;
+		}
+		positions[i] = pos;
+		distances[i] = distance;
+	}
+}
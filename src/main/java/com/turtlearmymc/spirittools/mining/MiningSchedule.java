@@ -0,0 +1,197 @@
+package com.turtlearmymc.spirittools.mining;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Packed positions a spirit tool still has to mine, along with a running count of how many of them are still valid. A
+ * position handed out by {@link #pollNearest} leaves the schedule but stays counted until {@link #markBroken} is called
+ * for it.
+ * <p>
+ * Positions are grouped by chunk. One chunk is mined nearest first until it runs out before the nearest other chunk is
+ * picked, and positions in chunks that are not loaded are kept for later without being looked at.
+ */
+public class MiningSchedule {
+	private static final long NO_CHUNK = Long.MAX_VALUE;
+
+	protected final LongOpenHashSet positions = new LongOpenHashSet();
+	protected final Long2ObjectOpenHashMap<MiningQueue> chunkQueues = new Long2ObjectOpenHashMap<>();
+	protected long currentChunk = NO_CHUNK;
+	protected int validBlocks;
+
+	public int size() {
+		return positions.size();
+	}
+
+	public boolean isEmpty() {
+		return positions.isEmpty();
+	}
+
+	public boolean contains(long pos) {
+		return positions.contains(pos);
+	}
+
+	public int getValidBlocks() {
+		return validBlocks;
+	}
+
+	/**
+	 * Positions are expected to come straight from a search of the world, so they are counted as valid
+	 *
+	 * @return whether the position was not scheduled yet
+	 */
+	public boolean add(long pos) {
+		if (!positions.add(pos)) return false;
+		++validBlocks;
+		queueOf(pos).add(pos);
+		return true;
+	}
+
+	public boolean remove(long pos) {
+		// The chunk queues skip positions that are no longer in the schedule when they are polled
+		if (!positions.remove(pos)) return false;
+		--validBlocks;
+		return true;
+	}
+
+	/**
+	 * Chunks are tested with {@link ChunkPos#toLong} keys and the validity check is only run on positions in chunks
+	 * that passed the loaded check.
+	 *
+	 * @return the nearest position in the current chunk that passes the validity check, or {@link MiningQueue#NONE}
+	 * if no loaded chunk has one
+	 */
+	public long pollNearest(double x, double y, double z, LongPredicate chunkLoaded, LongPredicate valid) {
+		LongPredicate scheduledAndValid = pos -> {
+			if (!positions.remove(pos)) return false;
+			// Polled positions are either mined next or no longer valid, so they leave the schedule either way
+			if (valid.test(pos)) return true;
+			--validBlocks;
+			return false;
+		};
+
+		while (true) {
+			if (currentChunk == NO_CHUNK || !chunkLoaded.test(currentChunk)) {
+				currentChunk = nearestChunk(x, z, chunkLoaded);
+				if (currentChunk == NO_CHUNK) return MiningQueue.NONE;
+			}
+			long pos = chunkQueues.get(currentChunk).pollNearest(x, y, z, scheduledAndValid);
+			if (pos != MiningQueue.NONE) return pos;
+			chunkQueues.remove(currentChunk);
+			currentChunk = NO_CHUNK;
+		}
+	}
+
+	/**
+	 * @return the loaded chunk with queued positions whose center is horizontally nearest, or {@link #NO_CHUNK}
+	 */
+	protected long nearestChunk(double x, double z, LongPredicate chunkLoaded) {
+		long nearest = NO_CHUNK;
+		double nearestDistance = Double.MAX_VALUE;
+		for (Long2ObjectMap.Entry<MiningQueue> entry : chunkQueues.long2ObjectEntrySet()) {
+			long chunk = entry.getLongKey();
+			double dx = (ChunkPos.getPackedX(chunk) << 4) + 8 - x;
+			double dz = (ChunkPos.getPackedZ(chunk) << 4) + 8 - z;
+			double distance = dx * dx + dz * dz;
+			if (distance >= nearestDistance || !chunkLoaded.test(chunk)) continue;
+			nearest = chunk;
+			nearestDistance = distance;
+		}
+		return nearest;
+	}
+
+	/**
+	 * Moves the positions of the chunk farthest from the given position out of the schedule, leaving the chunk being
+	 * mined alone
+	 *
+	 * @return the positions that were taken, empty if no other chunk has any
+	 */
+	public LongSet takeFarthestChunk(double x, double z) {
+		LongOpenHashSet taken = new LongOpenHashSet();
+		long farthest = NO_CHUNK;
+		double farthestDistance = -1;
+		for (Long2ObjectMap.Entry<MiningQueue> entry : chunkQueues.long2ObjectEntrySet()) {
+			long chunk = entry.getLongKey();
+			if (chunk == currentChunk) continue;
+			double dx = (ChunkPos.getPackedX(chunk) << 4) + 8 - x;
+			double dz = (ChunkPos.getPackedZ(chunk) << 4) + 8 - z;
+			double distance = dx * dx + dz * dz;
+			if (distance <= farthestDistance) continue;
+			farthest = chunk;
+			farthestDistance = distance;
+		}
+		if (farthest == NO_CHUNK) return taken;
+
+		for (long pos : chunkQueues.remove(farthest).toLongArray()) {
+			// Positions removed earlier are still in the queue
+			if (positions.remove(pos)) taken.add(pos);
+		}
+		validBlocks -= taken.size();
+		return taken;
+	}
+
+	protected MiningQueue queueOf(long pos) {
+		long chunk = ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+		MiningQueue queue = chunkQueues.get(chunk);
+		if (queue == null) {
+			queue = new MiningQueue();
+			chunkQueues.put(chunk, queue);
+		}
+		return queue;
+	}
+
+	/**
+	 * Counts a position that was polled earlier and is still being mined, e.g. after loading
+	 */
+	public void addInProgress() {
+		++validBlocks;
+	}
+
+	public void markBroken() {
+		--validBlocks;
+	}
+
+	public void clear() {
+		positions.clear();
+		chunkQueues.clear();
+		currentChunk = NO_CHUNK;
+		validBlocks = 0;
+	}
+
+	public long[] toLongArray() {
+		return positions.toLongArray();
+	}
+
+	public void writeNbt(NbtCompound nbt, String key) {
+		nbt.putLongArray(key, positions.toLongArray());
+	}
+
+	public void readNbt(NbtCompound nbt, String key) {
+		if (nbt.contains(key, NbtElement.LONG_ARRAY_TYPE)) {
+			for (long pos : nbt.getLongArray(key)) positions.add(pos);
+		} else if (nbt.contains(key, NbtElement.LIST_TYPE)) {
+			// Saves from before positions were packed store them as a list of x/y/z compounds
+			NbtList list = nbt.getList(key, NbtElement.COMPOUND_TYPE);
+			for (int i = 0; i < list.size(); i++) positions.add(NbtHelper.toBlockPos(list.getCompound(i)).asLong());
+		}
+
+		chunkQueues.clear();
+		currentChunk = NO_CHUNK;
+		for (LongIterator it = positions.iterator(); it.hasNext(); ) {
+			long pos = it.nextLong();
+			queueOf(pos).add(pos);
+		}
+		validBlocks = positions.size();
+	}
+}
@@ -0,0 +1,53 @@
+package com.turtlearmymc.spirittools.mining;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Reads block states from a world while keeping the last visited chunk section cached, so that scans over nearby
+ * positions skip the chunk lookup done by {@link World#getBlockState}. Chunks that are not loaded are never loaded and
+ * read as void air instead.
+ */
+public class SectionCachedBlockReader {
+	protected final World world;
+
+	protected boolean hasSection;
+	protected int sectionX;
+	protected int sectionY;
+	protected int sectionZ;
+	protected ChunkSection section;
+	protected boolean loaded;
+
+	public SectionCachedBlockReader(World world) {
+		this.world = world;
+	}
+
+	public BlockState getBlockState(int x, int y, int z) {
+		if (world.isOutOfHeightLimit(y)) return Blocks.VOID_AIR.getDefaultState();
+
+		int sx = x >> 4;
+		int sy = y >> 4;
+		int sz = z >> 4;
+		if (!hasSection || sx != sectionX || sy != sectionY || sz != sectionZ) {
+			WorldChunk chunk = world.getChunkManager().getWorldChunk(sx, sz, false);
+			section = chunk != null ? chunk.getSection(world.getSectionIndex(y)) : null;
+			loaded = chunk != null;
+			sectionX = sx;
+			sectionY = sy;
+			sectionZ = sz;
+			hasSection = true;
+		}
+
+		if (!loaded) return Blocks.VOID_AIR.getDefaultState();
+		if (section == null || section.isEmpty()) return Blocks.AIR.getDefaultState();
+		return section.getBlockState(x & 15, y & 15, z & 15);
+	}
+
+	public BlockMatcher matcherFor(Block block) {
+		return (x, y, z) -> getBlockState(x, y, z).isOf(block);
+	}
+}
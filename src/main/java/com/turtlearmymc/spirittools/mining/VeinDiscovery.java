@@ -0,0 +1,90 @@
+package com.turtlearmymc.spirittools.mining;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+/**
+ * Breadth first search for the face-connected blocks around a position that can be paused after a number of probed
+ * positions and resumed later, so that large veins can be searched over several ticks.
+ */
+public class VeinDiscovery {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	protected final int centerX;
+	protected final int centerY;
+	protected final int centerZ;
+	protected final double range;
+	protected final double rangeSquared;
+	// Holds every probed position, including the ones that did not match
+	protected final LongOpenHashSet visited = new LongOpenHashSet();
+	protected final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+	protected boolean started;
+
+	public VeinDiscovery(BlockPos center, double range) {
+		centerX = center.getX();
+		centerY = center.getY();
+		centerZ = center.getZ();
+		this.range = range;
+		rangeSquared = range * range;
+	}
+
+	public double getRange() {
+		return range;
+	}
+
+	public boolean isDone() {
+		return started && queue.isEmpty();
+	}
+
+	public boolean hasVisited(long pos) {
+		return visited.contains(pos);
+	}
+
+	/**
+	 * Probes up to the given number of positions, passing the ones that match and are strictly within range of the
+	 * center to the consumer
+	 *
+	 * @return how many positions were probed
+	 */
+	public int step(BlockMatcher matcher, int budget, LongConsumer found) {
+		int probed = 0;
+		if (!started) {
+			started = true;
+			++probed;
+			long start = BlockPos.asLong(centerX, centerY, centerZ);
+			visited.add(start);
+			if (rangeSquared <= 0 || !matcher.matches(centerX, centerY, centerZ)) return probed;
+			found.accept(start);
+			queue.enqueue(start);
+		}
+
+		while (!queue.isEmpty() && probed < budget) {
+			long pos = queue.dequeueLong();
+			int x = BlockPos.unpackLongX(pos);
+			int y = BlockPos.unpackLongY(pos);
+			int z = BlockPos.unpackLongZ(pos);
+			for (Direction direction : DIRECTIONS) {
+				int nx = x + direction.getOffsetX();
+				int ny = y + direction.getOffsetY();
+				int nz = z + direction.getOffsetZ();
+				double dx = nx - centerX;
+				double dy = ny - centerY;
+				double dz = nz - centerZ;
+				if (dx * dx + dy * dy + dz * dz >= rangeSquared) continue;
+
+				long neighbor = BlockPos.asLong(nx, ny, nz);
+				if (!visited.add(neighbor)) continue;
+				// A position is only finished with once all its neighbors were probed, so the budget may be
+				// overshot by a few positions
+				++probed;
+				if (!matcher.matches(nx, ny, nz)) continue;
+				found.accept(neighbor);
+				queue.enqueue(neighbor);
+			}
+		}
+		return probed;
+	}
+}
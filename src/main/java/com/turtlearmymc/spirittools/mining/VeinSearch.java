@@ -0,0 +1,23 @@
+package com.turtlearmymc.spirittools.mining;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Breadth first search for the face-connected blocks around a position. Positions are kept packed as longs so the
+ * search does not allocate per visited block.
+ */
+public final class VeinSearch {
+	private VeinSearch() {
+	}
+
+	/**
+	 * @return packed positions of all blocks connected to the center that match and are strictly within range of it
+	 */
+	public static LongSet findConnected(BlockMatcher matcher, BlockPos center, double range) {
+		LongOpenHashSet found = new LongOpenHashSet();
+		new VeinDiscovery(center, range).step(matcher, Integer.MAX_VALUE, found::add);
+		return found;
+	}
+}
@@ -0,0 +1,22 @@
+package com.turtlearmymc.spirittools.mixin;
+
+import com.turtlearmymc.spirittools.mining.ExperienceCapture;
+import net.minecraft.block.Block;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.GameRules;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Block.class)
+public abstract class BlockMixin {
+	@Inject(method = "dropExperience", at = @At("HEAD"), cancellable = true)
+	private void spirittools$captureExperience(ServerWorld world, BlockPos pos, int size, CallbackInfo ci) {
+		if (!ExperienceCapture.isCapturing(world)) return;
+		// Same condition the orbs would have been spawned under
+		if (world.getGameRules().getBoolean(GameRules.DO_TILE_DROPS)) ExperienceCapture.capture(size);
+		ci.cancel();
+	}
+}
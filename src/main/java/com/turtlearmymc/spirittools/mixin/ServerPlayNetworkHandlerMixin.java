@@ -0,0 +1,23 @@
+package com.turtlearmymc.spirittools.mixin;
+
+import com.turtlearmymc.spirittools.items.SpiritToolItem;
+import net.minecraft.network.packet.c2s.play.HandSwingC2SPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayNetworkHandler.class)
+public abstract class ServerPlayNetworkHandlerMixin {
+	@Shadow
+	public ServerPlayerEntity player;
+
+	// At the tail the packet was already moved to the server thread
+	@Inject(method = "onHandSwing", at = @At("TAIL"))
+	private void spirittools$keepSummonedToolAlive(HandSwingC2SPacket packet, CallbackInfo ci) {
+		SpiritToolItem.onContinuedSwing(player, packet.getHand());
+	}
+}
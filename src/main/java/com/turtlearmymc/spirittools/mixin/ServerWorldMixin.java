@@ -0,0 +1,20 @@
+package com.turtlearmymc.spirittools.mixin;
+
+import com.turtlearmymc.spirittools.entities.ScheduledBlockWatcher;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMixin {
+	@Inject(method = "onBlockChanged", at = @At("HEAD"))
+	private void spirittools$notifyScheduledBlockWatchers(
+			BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci
+	) {
+		ScheduledBlockWatcher.onBlockChanged((ServerWorld) (Object) this, pos, oldBlock, newBlock);
+	}
+}
@@ -0,0 +1,83 @@
+package com.turtlearmymc.spirittools.network;
+
+import com.turtlearmymc.spirittools.SpiritTools;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Starts and stops of block breaking by spirit tools during one tick. Instead of a packet for every break stage,
+ * clients get the total ticks to break a block once and animate the stages themselves.
+ * <p>
+ * Each entry is a breaker id, a packed position, the ticks already spent on the block and the total ticks to break
+ * it. A total of {@link #STOP} clears the progress of that breaker.
+ */
+public class BreakProgressPacket {
+	public static final Identifier ID = new Identifier(SpiritTools.MOD_ID, "break_progress");
+	public static final int STOP = 0;
+
+	protected final IntArrayList breakers = new IntArrayList();
+	protected final LongArrayList positions = new LongArrayList();
+	protected final IntArrayList elapsedTicks = new IntArrayList();
+	protected final IntArrayList totalTicks = new IntArrayList();
+
+	public boolean isEmpty() {
+		return breakers.isEmpty();
+	}
+
+	public void start(int breakerId, BlockPos pos, int elapsed, int total) {
+		breakers.add(breakerId);
+		positions.add(pos.asLong());
+		elapsedTicks.add(elapsed);
+		totalTicks.add(total);
+	}
+
+	public void stop(int breakerId, BlockPos pos) {
+		start(breakerId, pos, 0, STOP);
+	}
+
+	/**
+	 * Sends the batch as a single packet to every player tracking the breaking entity and clears it. Unlike the
+	 * vanilla break progress these are not limited to nearby players, since they are only sent on starts and stops and
+	 * players that start tracking the entity later get the current progress from it.
+	 */
+	public void send(Entity breaker) {
+		if (isEmpty()) return;
+		Packet<?> packet = ServerPlayNetworking.createS2CPacket(ID, write());
+		for (ServerPlayerEntity player : PlayerLookup.tracking(breaker)) player.networkHandler.sendPacket(packet);
+		clear();
+	}
+
+	public void send(ServerPlayerEntity player) {
+		if (isEmpty()) return;
+		ServerPlayNetworking.send(player, ID, write());
+		clear();
+	}
+
+	protected PacketByteBuf write() {
+		PacketByteBuf buf = PacketByteBufs.create();
+		buf.writeVarInt(breakers.size());
+		for (int i = 0; i < breakers.size(); i++) {
+			buf.writeVarInt(breakers.getInt(i));
+			buf.writeLong(positions.getLong(i));
+			buf.writeVarInt(elapsedTicks.getInt(i));
+			buf.writeVarInt(totalTicks.getInt(i));
+		}
+		return buf;
+	}
+
+	protected void clear() {
+		breakers.clear();
+		positions.clear();
+		elapsedTicks.clear();
+		totalTicks.clear();
+	}
+}
@@ -0,0 +1,38 @@
+package com.turtlearmymc.spirittools.entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the closed-form estimate against the countdown loop it replaced
+ */
+class MiningProfileTest {
+	@Test
+	void estimatesAsManyBlocksAsTheCountdown() {
+		for (int ticksToBreak = 0; ticksToBreak <= 40; ticksToBreak++) {
+			for (int remainingTicks = -50; remainingTicks <= 500; remainingTicks++) {
+				assertEquals(countDownBlocksBreakable(remainingTicks, ticksToBreak),
+						MiningProfile.estimateBlocksBreakable(remainingTicks, ticksToBreak),
+						remainingTicks + " ticks left, " + ticksToBreak + " ticks to break"
+				);
+			}
+		}
+	}
+
+	@Test
+	void instantBlocksTakeOneTickEach() {
+		assertEquals(0, MiningProfile.estimateBlocksBreakable(0, 0));
+		assertEquals(1, MiningProfile.estimateBlocksBreakable(1, 0));
+		assertEquals(1200, MiningProfile.estimateBlocksBreakable(1200, 0));
+	}
+
+	// The removed loop, 1 tick is removed at the end of each loop for the time it takes the tool to find the next block
+	private static int countDownBlocksBreakable(int remainingTicks, int ticksToBreak) {
+		int blocks = 0;
+		for (; remainingTicks > 0; remainingTicks -= ticksToBreak + 1) {
+			blocks++;
+		}
+		return blocks;
+	}
+}
@@ -0,0 +1,89 @@
+package com.turtlearmymc.spirittools.mining;
+
+import com.turtlearmymc.spirittools.benchmark.VeinShape;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the search finds the same blocks as the recursive SpiritToolItem#fillMiningPositions it replaced
+ */
+class VeinSearchTest {
+	private static final int[] SIZES = {1, 10, 100, 1000};
+
+	@Test
+	void findsTheVeinWithinItsRange() {
+		for (VeinShape shape : VeinShape.values()) {
+			for (int size : SIZES) {
+				LongOpenHashSet vein = shape.generate(size);
+				assertSameAsRecursiveSearch(vein, BlockPos.ORIGIN, VeinShape.rangeFor(vein));
+			}
+		}
+	}
+
+	@Test
+	void cutsTheVeinOffAtTheRange() {
+		for (VeinShape shape : VeinShape.values()) {
+			for (int size : SIZES) {
+				LongOpenHashSet vein = shape.generate(size);
+				double range = VeinShape.rangeFor(vein);
+				assertSameAsRecursiveSearch(vein, BlockPos.ORIGIN, range - 1);
+				// Blocks at exactly the range are left out
+				assertSameAsRecursiveSearch(vein, BlockPos.ORIGIN, Math.floor(range / 2));
+				assertSameAsRecursiveSearch(vein, BlockPos.ORIGIN, 1);
+				assertSameAsRecursiveSearch(vein, BlockPos.ORIGIN, 0);
+			}
+		}
+	}
+
+	@Test
+	void searchesFromAnyBlockOfTheVein() {
+		for (VeinShape shape : VeinShape.values()) {
+			LongOpenHashSet vein = shape.generate(100);
+			assertSameAsRecursiveSearch(vein, new BlockPos(2, 0, 0), 4);
+			assertSameAsRecursiveSearch(vein, new BlockPos(2, 0, 0), VeinShape.rangeFor(vein));
+		}
+	}
+
+	@Test
+	void findsNothingOutsideOfTheVein() {
+		for (VeinShape shape : VeinShape.values()) {
+			LongOpenHashSet vein = shape.generate(100);
+			assertSameAsRecursiveSearch(vein, new BlockPos(1000, 0, 0), 5);
+		}
+	}
+
+	private static void assertSameAsRecursiveSearch(LongOpenHashSet vein, BlockPos center, double range) {
+		BlockMatcher matcher = VeinShape.matcherFor(vein);
+		Set<BlockPos> positions = new HashSet<>();
+		fillMiningPositions(positions, matcher, center, center, range);
+		LongSet expected = new LongOpenHashSet();
+		positions.forEach(pos -> expected.add(pos.asLong()));
+
+		assertEquals(expected, VeinSearch.findConnected(matcher, center, range),
+				"vein of " + vein.size() + " blocks from " + center + " within " + range
+		);
+	}
+
+	// The removed recursive search, with the world lookup replaced by the matcher
+	private static void fillMiningPositions(
+			Set<BlockPos> positions, BlockMatcher matcher, BlockPos center, BlockPos pos, double range
+	) {
+		if (positions.contains(pos)) return;
+		if (!center.isWithinDistance(pos, range)) return;
+		if (!matcher.matches(pos.getX(), pos.getY(), pos.getZ())) return;
+		positions.add(pos);
+		fillMiningPositions(positions, matcher, center, pos.up(), range);
+		fillMiningPositions(positions, matcher, center, pos.down(), range);
+		fillMiningPositions(positions, matcher, center, pos.north(), range);
+		fillMiningPositions(positions, matcher, center, pos.south(), range);
+		fillMiningPositions(positions, matcher, center, pos.east(), range);
+		fillMiningPositions(positions, matcher, center, pos.west(), range);
+	}
+}